@@ -0,0 +1,126 @@
+package Benchmark;
+
+import ContextFreeGrammar.ContextFreeGrammar;
+import ParseTree.TreeBank;
+import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarBenchmark {
+
+    @State(Scope.Thread)
+    public static class TreeBankState {
+
+        @Param({"trees", "trees2"})
+        public String treeBankDirectory;
+
+        private TreeBank treeBank;
+
+        /**
+         * Reads the treebank before every invocation. Grammar induction replaces rare words in the trees, so a treebank
+         * is induced from only once.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(){
+            treeBank = new TreeBank(new File(treeBankDirectory));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GrammarState {
+
+        @Param({"trees", "trees2"})
+        public String treeBankDirectory;
+
+        private Path snapshot;
+        private ContextFreeGrammar cfg;
+
+        /**
+         * Induces the grammar once and writes it to a snapshot.
+         */
+        @Setup(Level.Trial)
+        public void induce() throws IOException {
+            snapshot = Files.createTempFile("grammar", ".snapshot");
+            new ContextFreeGrammar(new TreeBank(new File(treeBankDirectory)), 1).writeSnapshot(snapshot.toString());
+        }
+
+        /**
+         * Loads a fresh copy of the grammar from the snapshot before every invocation, since conversion to Chomsky
+         * Normal Form modifies the grammar.
+         */
+        @Setup(Level.Invocation)
+        public void load() throws IOException {
+            cfg = ContextFreeGrammar.readSnapshot(snapshot);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProbabilisticGrammarState {
+
+        @Param({"trees", "trees2"})
+        public String treeBankDirectory;
+
+        private Path snapshot;
+        private ProbabilisticContextFreeGrammar pcfg;
+
+        /**
+         * Induces the probabilistic grammar once and writes it to a snapshot.
+         */
+        @Setup(Level.Trial)
+        public void induce() throws IOException {
+            snapshot = Files.createTempFile("pcfg", ".snapshot");
+            new ProbabilisticContextFreeGrammar(new TreeBank(new File(treeBankDirectory)), 1).writeSnapshot(snapshot.toString());
+        }
+
+        /**
+         * Loads a fresh copy of the probabilistic grammar from the snapshot before every invocation, since conversion
+         * to Chomsky Normal Form modifies the grammar.
+         */
+        @Setup(Level.Invocation)
+        public void load() throws IOException {
+            pcfg = ProbabilisticContextFreeGrammar.readSnapshot(snapshot);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Benchmark
+    public ContextFreeGrammar constructGrammarFromTreeBank(TreeBankState state){
+        return new ContextFreeGrammar(state.treeBank, 1);
+    }
+
+    @Benchmark
+    public ProbabilisticContextFreeGrammar constructProbabilisticGrammarFromTreeBank(TreeBankState state){
+        return new ProbabilisticContextFreeGrammar(state.treeBank, 1);
+    }
+
+    @Benchmark
+    public ContextFreeGrammar convertToChomskyNormalForm(GrammarState state){
+        state.cfg.convertToChomskyNormalForm();
+        return state.cfg;
+    }
+
+    @Benchmark
+    public ProbabilisticContextFreeGrammar convertProbabilisticGrammarToChomskyNormalForm(ProbabilisticGrammarState state){
+        state.pcfg.convertToChomskyNormalForm();
+        return state.pcfg;
+    }
+}
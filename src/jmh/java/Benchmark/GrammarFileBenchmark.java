@@ -0,0 +1,19 @@
+package Benchmark;
+
+import ContextFreeGrammar.ContextFreeGrammar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarFileBenchmark {
+
+    @Benchmark
+    public ContextFreeGrammar loadGrammarFromFile(){
+        return new ContextFreeGrammar("rule1.txt", "dictionary1.txt", 1);
+    }
+}
@@ -0,0 +1,109 @@
+package Benchmark;
+
+import ContextFreeGrammar.ContextFreeGrammar;
+import Corpus.Sentence;
+import ParseTree.NodeCollector;
+import ParseTree.NodeCondition.IsLeaf;
+import ParseTree.ParseNode;
+import ParseTree.ParseTree;
+import ParseTree.TreeBank;
+import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
+import ProbabilisticParser.ProbabilisticCYKParser;
+import ProbabilisticParser.ProbabilisticEarleyParser;
+import SyntacticParser.CYKParser;
+import SyntacticParser.EarleyParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+    @Param({"1-7", "8-10", "11-100"})
+    public String sentenceLength;
+
+    private ContextFreeGrammar cfg;
+    private ContextFreeGrammar cnfCfg;
+    private ProbabilisticContextFreeGrammar pcfg;
+    private ProbabilisticContextFreeGrammar cnfPcfg;
+    private final ArrayList<String> sentences = new ArrayList<>();
+    private int next = 0;
+    private final CYKParser cykParser = new CYKParser();
+    private final EarleyParser earleyParser = new EarleyParser();
+    private final ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+    private final ProbabilisticEarleyParser probabilisticEarleyParser = new ProbabilisticEarleyParser();
+
+    /**
+     * Induces the grammars from the trees treebank and collects the sentences of the trees and trees2 treebanks
+     * whose word counts are in the range given by the sentenceLength parameter. The grammars are compiled here, so
+     * that the benchmarks measure only parsing.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        int minLength = Integer.parseInt(sentenceLength.substring(0, sentenceLength.indexOf('-')));
+        int maxLength = Integer.parseInt(sentenceLength.substring(sentenceLength.indexOf('-') + 1));
+        for (String directory : new String[]{"trees", "trees2"}){
+            TreeBank treeBank = new TreeBank(new File(directory));
+            for (int i = 0; i < treeBank.size(); i++){
+                ArrayList<ParseNode> leafList = new NodeCollector(treeBank.get(i).getRoot(), new IsLeaf()).collect();
+                if (leafList.size() >= minLength && leafList.size() <= maxLength){
+                    StringBuilder sentence = new StringBuilder();
+                    for (ParseNode leaf : leafList){
+                        sentence.append(" ").append(leaf.getData().getName());
+                    }
+                    sentences.add(sentence.toString().trim());
+                }
+            }
+        }
+        if (sentences.isEmpty()){
+            throw new IllegalStateException("No sentences with " + sentenceLength + " words");
+        }
+        cfg = new ContextFreeGrammar(new TreeBank(new File("trees")), 1);
+        cnfCfg = new ContextFreeGrammar(new TreeBank(new File("trees")), 1);
+        cnfCfg.convertToChomskyNormalForm();
+        pcfg = new ProbabilisticContextFreeGrammar(new TreeBank(new File("trees")), 1);
+        cnfPcfg = new ProbabilisticContextFreeGrammar(new TreeBank(new File("trees")), 1);
+        cnfPcfg.convertToChomskyNormalForm();
+        cfg.compile();
+        cnfCfg.compile();
+        pcfg.compile();
+        cnfPcfg.compile();
+    }
+
+    /**
+     * Returns the next sentence of the bucket, cycling over all sentences of the bucket.
+     * @return Next sentence to be parsed.
+     */
+    private Sentence nextSentence(){
+        Sentence sentence = new Sentence(sentences.get(next));
+        next = (next + 1) % sentences.size();
+        return sentence;
+    }
+
+    @Benchmark
+    public ArrayList<ParseTree> cykParser(){
+        return cykParser.parse(cnfCfg, nextSentence());
+    }
+
+    @Benchmark
+    public ArrayList<ParseTree> earleyParser(){
+        return earleyParser.parse(cfg, nextSentence());
+    }
+
+    @Benchmark
+    public ArrayList<ParseTree> probabilisticCYKParser(){
+        return probabilisticCYKParser.parse(cnfPcfg, nextSentence());
+    }
+
+    @Benchmark
+    public ArrayList<ParseTree> probabilisticEarleyParser(){
+        return probabilisticEarleyParser.parse(pcfg, nextSentence());
+    }
+}
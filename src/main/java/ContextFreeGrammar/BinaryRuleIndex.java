@@ -0,0 +1,83 @@
+package ContextFreeGrammar;
+
+import java.util.Arrays;
+
+public class BinaryRuleIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final long[] keys;
+    private final int[][] values;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Constructor for the BinaryRuleIndex class. Builds an open addressing hash table from the packed (B, C) pair of
+     * the right hand side to the ids of the rules X -&gt;  BC. Rules with the same pair are grouped into a single array
+     * in the given order.
+     * @param pairKeys Packed right hand side pairs of the rules, see {@link CompiledGrammar#pairKey(int, int)}.
+     * @param ruleIds Ids of the rules, ruleIds[i] is the rule with the right hand side pairKeys[i].
+     */
+    public BinaryRuleIndex(long[] pairKeys, int[] ruleIds){
+        int capacity = 2, count = 0, position;
+        while (capacity < 2 * pairKeys.length){
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        Arrays.fill(keys, -1);
+        values = new int[capacity][];
+        mask = capacity - 1;
+        for (int i = 0; i < pairKeys.length; i++){
+            position = find(pairKeys[i]);
+            if (keys[position] == -1){
+                keys[position] = pairKeys[i];
+                values[position] = new int[]{ruleIds[i]};
+                count++;
+            } else {
+                values[position] = Arrays.copyOf(values[position], values[position].length + 1);
+                values[position][values[position].length - 1] = ruleIds[i];
+            }
+        }
+        size = count;
+    }
+
+    /**
+     * Returns the slot of the given key, or the empty slot where the key should be inserted.
+     * @param key Packed pair to be searched.
+     * @return Slot of the key in the table.
+     */
+    private int find(long key){
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int position = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[position] != -1 && keys[position] != key){
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the ids of the rules X -&gt;  BC for the given B and C. The lookup is a single probe sequence in primitive
+     * arrays and does not allocate.
+     * @param B Id of the first symbol on the right hand side.
+     * @param C Id of the second symbol on the right hand side.
+     * @return Ids of the rules with the given right hand side. The returned array should not be modified.
+     */
+    public int[] get(int B, int C){
+        if (B < 0 || C < 0){
+            return EMPTY;
+        }
+        int position = find(CompiledGrammar.pairKey(B, C));
+        if (keys[position] == -1){
+            return EMPTY;
+        }
+        return values[position];
+    }
+
+    /**
+     * Returns number of distinct right hand side pairs in the index.
+     * @return Number of distinct right hand side pairs.
+     */
+    public int size(){
+        return size;
+    }
+}
@@ -0,0 +1,459 @@
+package ContextFreeGrammar;
+
+import ParseTree.Symbol;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+public class CompiledGrammar {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final class PredictionClosure {
+
+        private final int[] rules;
+        private final int[] symbols;
+
+        private PredictionClosure(int[] rules, int[] symbols){
+            this.rules = rules;
+            this.symbols = symbols;
+        }
+    }
+
+    private final SymbolTable symbolTable;
+    private final int nonTerminalCount;
+    private final Rule[] rules;
+    private final IdentityHashMap<Rule, Integer> ruleIds;
+    private final int[] leftHandSides;
+    private final int[] rightHandSideStarts;
+    private final int[] rightHandSides;
+    private final RuleType[] types;
+    private final int[][] rulesWithLeftSide;
+    private final int[][] terminalRulesWithRightSide;
+    private final BinaryRuleIndex rulesWithTwoNonTerminals;
+    private final boolean[] partOfSpeechTags;
+    private final PredictionClosure[] predictionClosures;
+    private final Lexicon lexicon;
+
+    /**
+     * Constructor for the CompiledGrammar class. Interns every symbol of the given rules into a dense id, left hand
+     * side symbols first so that non-terminal ids form the range [0, nonTerminalCount), and stores the rules in
+     * primitive arrays together with the left side, terminal and two non-terminal indexes used by the parsers. The
+     * compiled grammar is a frozen view, later changes in the rule list are not reflected.
+     * @param ruleList Rules of the grammar, rule ids are the positions of the rules in this list.
+     */
+    public CompiledGrammar(List<Rule> ruleList){
+        this(internSymbols(ruleList), ruleList.toArray(new Rule[0]));
+    }
+
+    /**
+     * Constructs the symbol and rule arrays of the given rules with the ids of the given symbol table.
+     * @param symbolTable Symbol table containing every symbol of the rules.
+     * @param rules Rules of the grammar.
+     */
+    private CompiledGrammar(SymbolTable symbolTable, Rule[] rules){
+        this(symbolTable, rules, leftHandSideIds(symbolTable, rules), rightHandSideStarts(rules), rightHandSideIds(symbolTable, rules));
+    }
+
+    /**
+     * Another constructor for the CompiledGrammar class. The symbol ids of the rules are already given, so no symbol is
+     * interned; only the indexes used by the parsers are constructed. Used when a compiled grammar is loaded from a
+     * snapshot. The left hand side symbols should have the smallest ids, as in the symbol tables interned by the other
+     * constructor.
+     * @param symbolTable Symbol table of the grammar.
+     * @param rules Rules of the grammar, rule ids are the positions of the rules in this array.
+     * @param leftHandSides Id of the left hand side symbol of each rule.
+     * @param rightHandSideStarts Start of the right hand side of each rule in the rightHandSides array, followed by the
+     *                            length of that array.
+     * @param rightHandSides Ids of the right hand side symbols of all rules.
+     */
+    public CompiledGrammar(SymbolTable symbolTable, Rule[] rules, int[] leftHandSides, int[] rightHandSideStarts, int[] rightHandSides){
+        int i, maxLeftHandSide = -1, size;
+        int[] counts;
+        this.symbolTable = symbolTable;
+        this.rules = rules;
+        this.leftHandSides = leftHandSides;
+        this.rightHandSideStarts = rightHandSideStarts;
+        this.rightHandSides = rightHandSides;
+        ruleIds = new IdentityHashMap<>();
+        types = new RuleType[rules.length];
+        partOfSpeechTags = new boolean[symbolTable.size()];
+        for (i = 0; i < rules.length; i++){
+            ruleIds.put(rules[i], i);
+            maxLeftHandSide = Math.max(maxLeftHandSide, leftHandSides[i]);
+            types[i] = rules[i].getType();
+            if (types[i] == RuleType.TERMINAL){
+                partOfSpeechTags[leftHandSides[i]] = true;
+            }
+        }
+        nonTerminalCount = maxLeftHandSide + 1;
+        counts = new int[symbolTable.size()];
+        for (i = 0; i < rules.length; i++){
+            counts[leftHandSides[i]]++;
+        }
+        rulesWithLeftSide = new int[symbolTable.size()][];
+        for (i = 0; i < rules.length; i++){
+            if (rulesWithLeftSide[leftHandSides[i]] == null){
+                rulesWithLeftSide[leftHandSides[i]] = new int[counts[leftHandSides[i]]];
+                counts[leftHandSides[i]] = 0;
+            }
+            rulesWithLeftSide[leftHandSides[i]][counts[leftHandSides[i]]++] = i;
+        }
+        counts = new int[symbolTable.size()];
+        for (i = 0; i < rules.length; i++){
+            if (types[i] == RuleType.TERMINAL){
+                counts[rightHandSides[rightHandSideStarts[i]]]++;
+            }
+        }
+        terminalRulesWithRightSide = new int[symbolTable.size()][];
+        for (i = 0; i < rules.length; i++){
+            if (types[i] == RuleType.TERMINAL){
+                int right = rightHandSides[rightHandSideStarts[i]];
+                if (terminalRulesWithRightSide[right] == null){
+                    terminalRulesWithRightSide[right] = new int[counts[right]];
+                    counts[right] = 0;
+                }
+                terminalRulesWithRightSide[right][counts[right]++] = i;
+            }
+        }
+        size = 0;
+        for (i = 0; i < rules.length; i++){
+            if (getRightHandSideSize(i) == 2){
+                size++;
+            }
+        }
+        long[] pairKeys = new long[size];
+        int[] pairRules = new int[size];
+        size = 0;
+        for (i = 0; i < rules.length; i++){
+            if (getRightHandSideSize(i) == 2){
+                pairKeys[size] = pairKey(getRightHandSideAt(i, 0), getRightHandSideAt(i, 1));
+                pairRules[size] = i;
+                size++;
+            }
+        }
+        rulesWithTwoNonTerminals = new BinaryRuleIndex(pairKeys, pairRules);
+        predictionClosures = new PredictionClosure[nonTerminalCount];
+        lexicon = new Lexicon(this);
+    }
+
+    /**
+     * Interns the symbols of the given rules, left hand side symbols first.
+     * @param ruleList Rules of the grammar.
+     * @return Symbol table containing every symbol of the rules.
+     */
+    private static SymbolTable internSymbols(List<Rule> ruleList){
+        SymbolTable symbolTable = new SymbolTable();
+        for (Rule rule : ruleList){
+            symbolTable.add(rule.getLeftHandSide());
+        }
+        for (Rule rule : ruleList){
+            for (Symbol symbol : rule.getRightHandSide()){
+                symbolTable.add(symbol);
+            }
+        }
+        return symbolTable;
+    }
+
+    /**
+     * Returns the ids of the left hand side symbols of the given rules.
+     * @param symbolTable Symbol table containing every symbol of the rules.
+     * @param rules Rules of the grammar.
+     * @return Id of the left hand side symbol of each rule.
+     */
+    private static int[] leftHandSideIds(SymbolTable symbolTable, Rule[] rules){
+        int[] result = new int[rules.length];
+        for (int i = 0; i < rules.length; i++){
+            result[i] = symbolTable.getId(rules[i].getLeftHandSide());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the start positions of the right hand sides of the given rules, when the right hand sides are stored one
+     * after another in a single array.
+     * @param rules Rules of the grammar.
+     * @return Start of the right hand side of each rule, followed by the total number of right hand side symbols.
+     */
+    private static int[] rightHandSideStarts(Rule[] rules){
+        int[] result = new int[rules.length + 1];
+        for (int i = 0; i < rules.length; i++){
+            result[i + 1] = result[i] + rules[i].getRightHandSideSize();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids of the right hand side symbols of the given rules, stored one after another.
+     * @param symbolTable Symbol table containing every symbol of the rules.
+     * @param rules Rules of the grammar.
+     * @return Ids of the right hand side symbols of all rules.
+     */
+    private static int[] rightHandSideIds(SymbolTable symbolTable, Rule[] rules){
+        int size = 0;
+        for (Rule rule : rules){
+            size += rule.getRightHandSideSize();
+        }
+        int[] result = new int[size];
+        size = 0;
+        for (Rule rule : rules){
+            for (Symbol symbol : rule.getRightHandSide()){
+                result[size++] = symbolTable.getId(symbol);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Constructs the left corner prediction closure of the given non-terminal. Predicting X adds the rules X -&gt;  Y...,
+     * predicting those entries adds the rules Y -&gt;  Z... when Y is not a part of speech tag, and so on. The closure
+     * contains the ids of all such rules in breadth first order, which is the order an Earley predictor adds them to
+     * a column, and the ids of the predicted non-terminals. Closures are constructed on the first request, since the
+     * sizes of all closures of a grammar in Chomsky Normal Form grow quadratically with the number of new symbols.
+     * Parsers sharing the grammar may construct the same closure concurrently; the results are identical and the
+     * final fields of the closure make it safely visible to the other threads.
+     * @param X Id of the non-terminal.
+     * @return Prediction closure of X.
+     */
+    private PredictionClosure getClosure(int X){
+        PredictionClosure result = predictionClosures[X];
+        if (result == null){
+            result = constructPredictionClosure(X);
+            predictionClosures[X] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Constructs the left corner prediction closure of the given non-terminal with a breadth first search over the
+     * left corners.
+     * @param X Id of the non-terminal.
+     * @return Prediction closure of X.
+     */
+    private PredictionClosure constructPredictionClosure(int X){
+        int[] symbols = new int[nonTerminalCount];
+        int[] closure = new int[8];
+        int symbolCount = 1, ruleCount = 0, first;
+        boolean[] visited = new boolean[nonTerminalCount];
+        symbols[0] = X;
+        visited[X] = true;
+        for (int i = 0; i < symbolCount; i++){
+            for (int rule : getRulesWithLeftSideX(symbols[i])){
+                if (ruleCount == closure.length){
+                    closure = Arrays.copyOf(closure, 2 * closure.length);
+                }
+                closure[ruleCount++] = rule;
+                first = getRightHandSideAt(rule, 0);
+                if (first < nonTerminalCount && !partOfSpeechTags[first] && !visited[first]){
+                    visited[first] = true;
+                    symbols[symbolCount++] = first;
+                }
+            }
+        }
+        return new PredictionClosure(Arrays.copyOf(closure, ruleCount), Arrays.copyOf(symbols, symbolCount));
+    }
+
+    /**
+     * Packs two symbol ids into a single long key.
+     * @param first Id of the first symbol.
+     * @param second Id of the second symbol.
+     * @return Key containing the first id in the upper and the second id in the lower 32 bits.
+     */
+    public static long pairKey(int first, int second){
+        return ((long) first << 32) | (second & 0xffffffffL);
+    }
+
+    /**
+     * Returns the id of the given symbol.
+     * @param symbol Symbol to be searched.
+     * @return Id of the symbol, -1 if the symbol does not occur in the grammar.
+     */
+    public int getSymbolId(Symbol symbol){
+        return symbolTable.getId(symbol);
+    }
+
+    /**
+     * Returns the id of the symbol with the given name.
+     * @param name Name of the symbol.
+     * @return Id of the symbol, -1 if the symbol does not occur in the grammar.
+     */
+    public int getSymbolId(String name){
+        return symbolTable.getId(name);
+    }
+
+    /**
+     * Returns the symbol with the given id.
+     * @param symbolId Id of the symbol.
+     * @return Symbol with the given id.
+     */
+    public Symbol getSymbol(int symbolId){
+        return symbolTable.getSymbol(symbolId);
+    }
+
+    /**
+     * Returns number of symbols in the grammar.
+     * @return Number of symbols in the grammar.
+     */
+    public int getSymbolCount(){
+        return symbolTable.size();
+    }
+
+    /**
+     * Returns number of non-terminal symbols in the grammar, that is symbols occurring on the left side of a rule.
+     * Non-terminal symbols have the ids 0, 1, ..., nonTerminalCount - 1.
+     * @return Number of non-terminal symbols in the grammar.
+     */
+    public int getNonTerminalCount(){
+        return nonTerminalCount;
+    }
+
+    /**
+     * Returns number of rules in the grammar.
+     * @return Number of rules in the grammar.
+     */
+    public int getRuleCount(){
+        return rules.length;
+    }
+
+    /**
+     * Returns the rule with the given id.
+     * @param ruleId Id of the rule.
+     * @return Rule with the given id.
+     */
+    public Rule getRule(int ruleId){
+        return rules[ruleId];
+    }
+
+    /**
+     * Returns the id of the given rule. The rule should be one of the rule objects of the grammar.
+     * @param rule Rule to be searched.
+     * @return Id of the rule, -1 if the rule is not a rule of the compiled grammar.
+     */
+    public int getRuleId(Rule rule){
+        Integer id = ruleIds.get(rule);
+        if (id == null){
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the left hand side symbol of the rule with the given id.
+     * @param ruleId Id of the rule.
+     * @return Id of the left hand side symbol.
+     */
+    public int getLeftHandSide(int ruleId){
+        return leftHandSides[ruleId];
+    }
+
+    /**
+     * Returns number of symbols on the right hand side of the rule with the given id.
+     * @param ruleId Id of the rule.
+     * @return Number of symbols on the right hand side.
+     */
+    public int getRightHandSideSize(int ruleId){
+        return rightHandSideStarts[ruleId + 1] - rightHandSideStarts[ruleId];
+    }
+
+    /**
+     * Returns the id of the symbol at position index on the right hand side of the rule with the given id.
+     * @param ruleId Id of the rule.
+     * @param index Position of the symbol.
+     * @return Id of the symbol at position index on the right hand side.
+     */
+    public int getRightHandSideAt(int ruleId, int index){
+        return rightHandSides[rightHandSideStarts[ruleId] + index];
+    }
+
+    /**
+     * Returns the type of the rule with the given id.
+     * @param ruleId Id of the rule.
+     * @return Type of the rule.
+     */
+    public RuleType getType(int ruleId){
+        return types[ruleId];
+    }
+
+    /**
+     * Checks if the symbol with the given id is the left hand side of a terminal rule such as X -&gt;  a.
+     * @param symbolId Id of the symbol.
+     * @return True, if the symbol is a part of speech tag; false otherwise.
+     */
+    public boolean isPartOfSpeechTag(int symbolId){
+        return symbolId >= 0 && partOfSpeechTags[symbolId];
+    }
+
+    /**
+     * Returns the ids of the rules formed as X -&gt;  ...
+     * @param X Id of the left side symbol.
+     * @return Ids of the rules of the form X -&gt;  ... The returned array should not be modified.
+     */
+    public int[] getRulesWithLeftSideX(int X){
+        if (X < 0 || rulesWithLeftSide[X] == null){
+            return EMPTY;
+        }
+        return rulesWithLeftSide[X];
+    }
+
+    /**
+     * Returns the ids of the rules added to a column of an Earley chart when the given non-terminal is predicted,
+     * including the rules predicted recursively from their left corners.
+     * @param X Id of the predicted non-terminal.
+     * @return Ids of the rules in the prediction closure of X. The returned array should not be modified.
+     */
+    public int[] getPredictionClosure(int X){
+        if (X < 0 || X >= nonTerminalCount){
+            return EMPTY;
+        }
+        return getClosure(X).rules;
+    }
+
+    /**
+     * Returns the ids of the non-terminals predicted together with the given non-terminal, that is the left hand sides
+     * of the rules in its prediction closure.
+     * @param X Id of the predicted non-terminal.
+     * @return Ids of the predicted non-terminals, X first. The returned array should not be modified.
+     */
+    public int[] getPredictedSymbols(int X){
+        if (X < 0 || X >= nonTerminalCount){
+            return EMPTY;
+        }
+        return getClosure(X).symbols;
+    }
+
+    /**
+     * Returns the ids of the terminal rules with the given terminal symbol on the right hand side, that is the rules
+     * such as X -&gt;  s
+     * @param s Id of the terminal symbol on the right hand side.
+     * @return Ids of the terminal rules with the given symbol on the right hand side. The returned array should not be
+     * modified.
+     */
+    public int[] getTerminalRulesWithRightSideX(int s){
+        if (s < 0 || terminalRulesWithRightSide[s] == null){
+            return EMPTY;
+        }
+        return terminalRulesWithRightSide[s];
+    }
+
+    /**
+     * Accessor for the lexicon, the index of the terminal rules by the words they emit.
+     * @return Lexicon of the grammar.
+     */
+    public Lexicon getLexicon(){
+        return lexicon;
+    }
+
+    /**
+     * Returns the ids of the rules with the given two non-terminal symbols on the right hand side, that is the rules
+     * such as X -&gt;  AB.
+     * @param A Id of the first non-terminal symbol on the right hand side.
+     * @param B Id of the second non-terminal symbol on the right hand side.
+     * @return Ids of the rules with the given two symbols on the right hand side. The returned array should not be
+     * modified.
+     */
+    public int[] getRulesWithTwoNonTerminalsOnRightSide(int A, int B){
+        return rulesWithTwoNonTerminals.get(A, B);
+    }
+
+}
@@ -13,10 +13,20 @@ import ParseTree.NodeCondition.IsLeaf;
 import Dictionary.Word;
 
 import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
 import java.util.regex.Pattern;
 
 public class ContextFreeGrammar {
@@ -25,6 +35,12 @@ public class ContextFreeGrammar {
     protected ArrayList<Rule> rules = new ArrayList<>();
     protected ArrayList<Rule> rulesRightSorted = new ArrayList<>();
     protected int minCount = 1;
+    protected CompiledGrammar compiledGrammar = null;
+    protected volatile boolean frozen = false;
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\+?\\d+");
+    private static final Pattern DECIMAL_PATTERN = Pattern.compile("\\+?(\\d+)?\\.\\d*");
+    private static final int SNAPSHOT_MAGIC = 0x43464753;
+    private static final int SNAPSHOT_VERSION = 1;
 
     /**
      * Empty constructor for the ContextFreeGrammar class.
@@ -78,6 +94,152 @@ public class ContextFreeGrammar {
         this.minCount = minCount;
     }
 
+    /**
+     * Loads a grammar from a snapshot written by {@link #writeSnapshot(String)}. The snapshot is memory mapped and read
+     * as primitive arrays, the rules are already sorted and typed, and the compiled grammar is constructed from the
+     * stored symbol ids; so a grammar converted to Chomsky Normal Form before writing is ready for parsing without
+     * parsing rule lines, sorting or converting again.
+     * @param snapshotFile Path of the grammar snapshot.
+     * @return Grammar stored in the snapshot.
+     * @throws IOException If the file can not be read, is not a grammar snapshot of this version, or is truncated or
+     * corrupt.
+     */
+    public static ContextFreeGrammar readSnapshot(Path snapshotFile) throws IOException{
+        ContextFreeGrammar grammar = new ContextFreeGrammar();
+        grammar.loadSnapshot(snapshotFile);
+        return grammar;
+    }
+
+    /**
+     * Reads a grammar snapshot into this empty grammar. The snapshot consists of the minimum frequency parameter, the
+     * symbol names in the order of their ids, the left side ids, right side starts and right side ids of the rules in
+     * the order of the rule list, the types, probabilities and log probabilities of the rules, the order of the rules
+     * in the right side sorted list and the lexicon. The whole snapshot is read and checked before any field of the
+     * grammar is set, so the grammar is either loaded completely or left unchanged.
+     * @param snapshotFile Path of the grammar snapshot.
+     * @throws IOException If the file can not be read, is not a grammar snapshot of this version, or is truncated or
+     * corrupt.
+     */
+    protected void loadSnapshot(Path snapshotFile) throws IOException{
+        int ruleCount, symbolCount, wordCount, snapshotMinCount;
+        Symbol[] symbols;
+        Rule[] ruleArray;
+        ArrayList<Symbol> rightHandSide;
+        RuleType[] ruleTypes = RuleType.values();
+        SymbolTable symbolTable = new SymbolTable();
+        CounterHashMap<String> snapshotDictionary = new CounterHashMap<>();
+        ArrayList<Rule> snapshotRules, snapshotRulesRightSorted;
+        CompiledGrammar snapshotGrammar;
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)){
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != SNAPSHOT_MAGIC){
+                throw new IOException(snapshotFile + " is not a grammar snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION){
+                throw new IOException(snapshotFile + " is a grammar snapshot of version " + version + ", expected version " + SNAPSHOT_VERSION);
+            }
+            try {
+                snapshotMinCount = buffer.getInt();
+                symbolCount = buffer.getInt();
+                symbols = new Symbol[symbolCount];
+                for (int i = 0; i < symbolCount; i++){
+                    symbols[i] = new Symbol(readString(buffer));
+                    symbolTable.add(symbols[i]);
+                }
+                ruleCount = buffer.getInt();
+                int[] leftHandSides = readInts(buffer, ruleCount);
+                int[] rightHandSideStarts = readInts(buffer, ruleCount + 1);
+                int[] rightHandSides = readInts(buffer, rightHandSideStarts[ruleCount]);
+                byte[] types = new byte[ruleCount];
+                buffer.get(types);
+                double[] probabilities = readDoubles(buffer, ruleCount);
+                double[] logProbabilities = readDoubles(buffer, ruleCount);
+                int[] rightSortedOrder = readInts(buffer, ruleCount);
+                ruleArray = new Rule[ruleCount];
+                snapshotRules = new ArrayList<>(ruleCount);
+                for (int i = 0; i < ruleCount; i++){
+                    rightHandSide = new ArrayList<>(rightHandSideStarts[i + 1] - rightHandSideStarts[i]);
+                    for (int j = rightHandSideStarts[i]; j < rightHandSideStarts[i + 1]; j++){
+                        rightHandSide.add(symbols[rightHandSides[j]]);
+                    }
+                    ruleArray[i] = snapshotRule(symbols[leftHandSides[i]], rightHandSide, ruleTypes[types[i]], probabilities[i], logProbabilities[i]);
+                    snapshotRules.add(ruleArray[i]);
+                }
+                snapshotRulesRightSorted = new ArrayList<>(ruleCount);
+                for (int ruleId : rightSortedOrder){
+                    snapshotRulesRightSorted.add(ruleArray[ruleId]);
+                }
+                wordCount = buffer.getInt();
+                for (int i = 0; i < wordCount; i++){
+                    String word = readString(buffer);
+                    snapshotDictionary.putNTimes(word, buffer.getInt());
+                }
+                if (buffer.hasRemaining()){
+                    throw new IOException(snapshotFile + " has " + buffer.remaining() + " bytes after the end of the grammar snapshot");
+                }
+                snapshotGrammar = new CompiledGrammar(symbolTable, ruleArray, leftHandSides, rightHandSideStarts, rightHandSides);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+                throw new IOException(snapshotFile + " is a truncated or corrupt grammar snapshot", e);
+            }
+        }
+        minCount = snapshotMinCount;
+        rules = snapshotRules;
+        rulesRightSorted = snapshotRulesRightSorted;
+        dictionary = snapshotDictionary;
+        compiledGrammar = snapshotGrammar;
+    }
+
+    /**
+     * Constructs a rule of the grammar loaded from a snapshot.
+     * @param leftHandSide Left hand side symbol of the rule.
+     * @param rightHandSide Right hand side symbols of the rule.
+     * @param type Type of the rule.
+     * @param probability Probability of the rule.
+     * @param logProbability Log probability of the rule.
+     * @return New rule.
+     */
+    protected Rule snapshotRule(Symbol leftHandSide, ArrayList<Symbol> rightHandSide, RuleType type, double probability, double logProbability){
+        return new Rule(leftHandSide, rightHandSide, type);
+    }
+
+    /**
+     * Reads a string stored as its length in bytes followed by its UTF-8 bytes.
+     * @param buffer Buffer positioned at the string.
+     * @return String read.
+     */
+    private static String readString(ByteBuffer buffer){
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the given number of integers with a single bulk copy and advances the buffer past them.
+     * @param buffer Buffer positioned at the integers.
+     * @param count Number of integers.
+     * @return Integers read.
+     */
+    private static int[] readInts(ByteBuffer buffer, int count){
+        int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + 4 * count);
+        return result;
+    }
+
+    /**
+     * Reads the given number of doubles with a single bulk copy and advances the buffer past them.
+     * @param buffer Buffer positioned at the doubles.
+     * @param count Number of doubles.
+     * @return Doubles read.
+     */
+    private static double[] readDoubles(ByteBuffer buffer, int count){
+        double[] result = new double[count];
+        buffer.asDoubleBuffer().get(result);
+        buffer.position(buffer.position() + 8 * count);
+        return result;
+    }
+
     /**
      * Another constructor for the ContextFreeGrammar class. Constructs the lexicon from the leaf nodes of the trees
      * in the given treebank. Extracts rules from the non-leaf nodes of the trees in the given treebank. Also sets the
@@ -114,6 +276,209 @@ public class ContextFreeGrammar {
         this.minCount = minCount;
     }
 
+    /**
+     * Another constructor for the ContextFreeGrammar class. Induces the grammar from the tree files in the given
+     * folder without constructing a treebank, so grammars can be induced from treebanks larger than the memory. The
+     * lexicon is counted in a first pass over the files and the rules are extracted in a second pass; each tree is
+     * read, used and dropped, so only one tree is in memory at a time. The resulting grammar is the same as the one
+     * induced from the treebank of the folder.
+     * @param treeBankFolder Folder containing one constituency tree per file.
+     * @param minCount Minimum frequency parameter.
+     */
+    public ContextFreeGrammar(File treeBankFolder, int minCount){
+        this(treeBankFolder, minCount, null);
+    }
+
+    /**
+     * Another constructor for the ContextFreeGrammar class. Induces the grammar from the tree files in the given
+     * folder as {@link #ContextFreeGrammar(File, int)} does, but the files are split into shards counted concurrently
+     * with the given executor.
+     * @param treeBankFolder Folder containing one constituency tree per file.
+     * @param minCount Minimum frequency parameter.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     */
+    public ContextFreeGrammar(File treeBankFolder, int minCount, ExecutorService executor){
+        File[] treeFiles = treeFiles(treeBankFolder);
+        induceGrammar(treeFiles.length, index -> readTree(treeFiles[index]), minCount, executor);
+    }
+
+    /**
+     * Another constructor for the ContextFreeGrammar class. Induces the same grammar as
+     * {@link #ContextFreeGrammar(TreeBank, int)}, but the trees are split into shards counted concurrently with the
+     * given executor, and the rules are sorted once instead of being inserted into the sorted rule lists one by one.
+     * As in that constructor, the rare words and numbers in the trees of the treebank are replaced.
+     * @param treeBank Treebank containing the constituency trees.
+     * @param minCount Minimum frequency parameter.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     */
+    public ContextFreeGrammar(TreeBank treeBank, int minCount, ExecutorService executor){
+        induceGrammar(treeBank.size(), treeBank::get, minCount, executor);
+    }
+
+    /**
+     * Induces the lexicon and the rules of the grammar from the given trees in two passes. The trees are split into
+     * contiguous shards; in each pass every shard is counted by a single task into its own counter, and the counters
+     * of the shards are merged once the pass is complete, so the tasks share nothing but the trees they read. The
+     * first pass counts the leaves of the trees in the dictionary, which is needed to find the rare words; the second
+     * pass replaces the rare words and numbers in each tree and counts its rules. After the merge, each distinct rule
+     * is counted with {@link #countRule(Rule, int)}, and the rule lists are sorted once.
+     * @param treeCount Number of trees.
+     * @param trees Returns the tree with the given index, or null if there is no such tree. Called once per pass for
+     *              each index, possibly from different threads.
+     * @param minCount Minimum frequency parameter.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     */
+    protected void induceGrammar(int treeCount, IntFunction<ParseTree> trees, int minCount, ExecutorService executor){
+        CounterHashMap<Rule> ruleCounts = new CounterHashMap<>();
+        for (CounterHashMap<String> shardDictionary : countShards(treeCount, executor, (from, to) -> countLeaves(trees, from, to))){
+            dictionary.add(shardDictionary);
+        }
+        for (CounterHashMap<Rule> shardRules : countShards(treeCount, executor, (from, to) -> countRules(trees, from, to, minCount))){
+            ruleCounts.add(shardRules);
+        }
+        for (Map.Entry<Rule, Integer> entry : ruleCounts.entrySet()){
+            countRule(entry.getKey(), entry.getValue());
+            rules.add(entry.getKey());
+            rulesRightSorted.add(entry.getKey());
+        }
+        rules.sort(new RuleComparator());
+        rulesRightSorted.sort(new RuleRightSideComparator());
+        updateTypes();
+        this.minCount = minCount;
+    }
+
+    /**
+     * Splits the trees into contiguous shards and counts each shard with the given counter. Without an executor, all
+     * trees form a single shard counted on the calling thread; with an executor, there are a few shards per processor
+     * so that the tasks stay balanced.
+     * @param treeCount Number of trees.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     * @param counter Counts the trees in the range [from, to).
+     * @return Counts of the shards, in the order of the shards.
+     */
+    private static <T> ArrayList<T> countShards(int treeCount, ExecutorService executor, BiFunction<Integer, Integer, T> counter){
+        ArrayList<T> result = new ArrayList<>();
+        if (executor == null){
+            result.add(counter.apply(0, treeCount));
+            return result;
+        }
+        int shardCount = Math.max(1, Math.min(treeCount, 4 * Runtime.getRuntime().availableProcessors()));
+        ArrayList<Callable<T>> tasks = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++){
+            int from = (int) ((long) treeCount * i / shardCount);
+            int to = (int) ((long) treeCount * (i + 1) / shardCount);
+            tasks.add(() -> counter.apply(from, to));
+        }
+        return TaskRunner.runAll(tasks, executor);
+    }
+
+    /**
+     * Counts the leaves of the trees in the given range.
+     * @param trees Returns the tree with the given index, or null if there is no such tree.
+     * @param from Index of the first tree.
+     * @param to Index after the last tree.
+     * @return Number of occurrences of each leaf symbol.
+     */
+    private static CounterHashMap<String> countLeaves(IntFunction<ParseTree> trees, int from, int to){
+        CounterHashMap<String> result = new CounterHashMap<>();
+        for (int i = from; i < to; i++){
+            ParseTree parseTree = trees.apply(i);
+            if (parseTree != null){
+                addLeaves(parseTree, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the rare words and numbers in the trees in the given range and counts their rules. The dictionary
+     * should be complete, it is only read.
+     * @param trees Returns the tree with the given index, or null if there is no such tree.
+     * @param from Index of the first tree.
+     * @param to Index after the last tree.
+     * @param minCount Minimum frequency for the words to be considered as rare.
+     * @return Number of occurrences of each rule.
+     */
+    private CounterHashMap<Rule> countRules(IntFunction<ParseTree> trees, int from, int to, int minCount){
+        CounterHashMap<Rule> result = new CounterHashMap<>();
+        for (int i = from; i < to; i++){
+            ParseTree parseTree = trees.apply(i);
+            if (parseTree != null){
+                updateExceptionalWordsInTree(parseTree, minCount);
+                collectRules(parseTree.getRoot(), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tree files in the given folder in the order a treebank reads them, that is sorted by name and
+     * without subfolders and hidden files.
+     * @param treeBankFolder Folder containing one constituency tree per file.
+     * @return Tree files in the folder.
+     */
+    private static File[] treeFiles(File treeBankFolder){
+        File[] listOfFiles = treeBankFolder.listFiles(file -> !file.isDirectory() && !file.getName().startsWith("."));
+        if (listOfFiles == null){
+            return new File[0];
+        }
+        Arrays.sort(listOfFiles);
+        return listOfFiles;
+    }
+
+    /**
+     * Reads the constituency tree in the given file.
+     * @param file Tree file.
+     * @return Tree in the file, null if the file can not be read or does not contain a tree.
+     */
+    private static ParseTree readTree(File file){
+        try (FileInputStream inputStream = new FileInputStream(file)){
+            ParseTree parseTree = new ParseTree(inputStream);
+            if (parseTree.getRoot() != null){
+                return parseTree;
+            }
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    /**
+     * Recursive method to count all rules from a subtree rooted at the given node in the given counter.
+     * @param parseNode Root node of the subtree.
+     * @param ruleCounts Number of occurrences of each rule counted so far.
+     */
+    private void collectRules(ParseNode parseNode, CounterHashMap<Rule> ruleCounts){
+        Rule newRule = inducedRule(parseNode);
+        if (newRule != null){
+            ruleCounts.put(newRule);
+        }
+        for (int i = 0; i < parseNode.numberOfChildren(); i++){
+            ParseNode childNode = parseNode.getChild(i);
+            if (childNode.numberOfChildren() > 0){
+                collectRules(childNode, ruleCounts);
+            }
+        }
+    }
+
+    /**
+     * Converts a parse node to a rule while inducing the grammar from tree files.
+     * @param parseNode Parse node for which a rule will be created.
+     * @return A new rule constructed from the parse node and its children, null if a child has no data.
+     */
+    protected Rule inducedRule(ParseNode parseNode){
+        return toRule(parseNode, true);
+    }
+
+    /**
+     * Sets the number of occurrences of the given rule in the trees, after the grammar is induced with
+     * {@link #induceGrammar(int, IntFunction, int, ExecutorService)}. Rules of a context free grammar are not weighted,
+     * so occurrences are not counted.
+     * @param rule Rule occurring in the trees.
+     * @param count Number of occurrences of the rule.
+     */
+    protected void countRule(Rule rule, int count){
+    }
+
     /**
      * Constructs the lexicon from the given treebank. Reads each tree and for each leaf node in each tree puts the
      * symbol in the dictionary.
@@ -121,12 +486,20 @@ public class ContextFreeGrammar {
      */
     protected void constructDictionary(TreeBank treeBank){
         for (int i = 0; i < treeBank.size(); i++){
-            ParseTree parseTree = treeBank.get(i);
-            NodeCollector nodeCollector = new NodeCollector(parseTree.getRoot(), new IsLeaf());
-            ArrayList<ParseNode> leafList = nodeCollector.collect();
-            for (ParseNode parseNode : leafList){
-                dictionary.put(parseNode.getData().getName());
-            }
+            addLeaves(treeBank.get(i), dictionary);
+        }
+    }
+
+    /**
+     * Counts the symbols of the leaf nodes of the given tree in the given counter.
+     * @param parseTree Constituency tree.
+     * @param leafCounts Number of occurrences of each leaf symbol counted so far.
+     */
+    private static void addLeaves(ParseTree parseTree, CounterHashMap<String> leafCounts){
+        NodeCollector nodeCollector = new NodeCollector(parseTree.getRoot(), new IsLeaf());
+        ArrayList<ParseNode> leafList = nodeCollector.collect();
+        for (ParseNode parseNode : leafList){
+            leafCounts.put(parseNode.getData().getName());
         }
     }
 
@@ -160,16 +533,11 @@ public class ContextFreeGrammar {
     public void updateExceptionalWordsInTree(ParseTree parseTree, int minCount){
         NodeCollector nodeCollector = new NodeCollector(parseTree.getRoot(), new IsLeaf());
         ArrayList<ParseNode> leafList = nodeCollector.collect();
-        Pattern pattern1 = Pattern.compile("\\+?\\d+");
-        Pattern pattern2 = Pattern.compile("\\+?(\\d+)?\\.\\d*");
         for (ParseNode parseNode : leafList){
             String data = parseNode.getData().getName();
-            if (pattern1.matcher(data).matches() || (pattern2.matcher(data).matches() && !data.equals("."))){
-                parseNode.setData(new Symbol("_num_"));
-            } else {
-                if (dictionary.count(data) < minCount){
-                    parseNode.setData(new Symbol("_rare_"));
-                }
+            String exceptional = exceptionalForm(data, minCount);
+            if (!exceptional.equals(data)){
+                parseNode.setData(new Symbol(exceptional));
             }
         }
     }
@@ -188,16 +556,11 @@ public class ContextFreeGrammar {
     public void updateExceptionalWordsInTree(ParseTreeDrawable parseTree, int minCount){
         NodeDrawableCollector nodeCollector = new NodeDrawableCollector((ParseNodeDrawable) parseTree.getRoot(), new IsLeafNode());
         ArrayList<ParseNodeDrawable> leafList = nodeCollector.collect();
-        Pattern pattern1 = Pattern.compile("\\+?\\d+");
-        Pattern pattern2 = Pattern.compile("\\+?(\\d+)?\\.\\d*");
         for (ParseNodeDrawable parseNode : leafList){
             String data = parseNode.getLayerData(ViewLayerType.TURKISH_WORD);
-            if (pattern1.matcher(data).matches() || (pattern2.matcher(data).matches() && !data.equals("."))){
-                parseNode.getLayerInfo().setLayerData(ViewLayerType.TURKISH_WORD, "_num_");
-            } else {
-                if (dictionary.count(data) < minCount){
-                    parseNode.getLayerInfo().setLayerData(ViewLayerType.TURKISH_WORD, "_rare_");
-                }
+            String exceptional = exceptionalForm(data, minCount);
+            if (!exceptional.equals(data)){
+                parseNode.getLayerInfo().setLayerData(ViewLayerType.TURKISH_WORD, exceptional);
             }
         }
     }
@@ -213,18 +576,44 @@ public class ContextFreeGrammar {
      * @param sentence Sentence to be updated.
      */
     public void updateExceptionalWordsInSentence(Sentence sentence){
-        Pattern pattern1 = Pattern.compile("\\+?\\d+");
-        Pattern pattern2 = Pattern.compile("\\+?(\\d+)?\\.\\d*");
         for (int i = 0; i < sentence.wordCount(); i++){
             Word word = sentence.getWord(i);
-            if (pattern1.matcher(word.getName()).matches() || (pattern2.matcher(word.getName()).matches() && !word.getName().equals("."))){
-                word.setName("_num_");
-            } else {
-                if (dictionary.count(word.getName()) < minCount){
-                    word.setName("_rare_");
-                }
-            }
+            word.setName(exceptionalForm(word.getName(), minCount));
+        }
+    }
+
+    /**
+     * Returns a normalized copy of the given sentence, where the words containing numerals are converted to _num_ and
+     * the rare words are converted to _rare_ as in {@link #updateExceptionalWordsInSentence(Sentence)}. Unlike that
+     * method, the given sentence is not modified, so the parsers can normalize sentences of the callers without
+     * side effects.
+     * @param sentence Sentence to be normalized.
+     * @return Normalized copy of the sentence.
+     */
+    public Sentence normalizeSentence(Sentence sentence){
+        Sentence normalized = new Sentence();
+        for (int i = 0; i < sentence.wordCount(); i++){
+            normalized.addWord(new Word(exceptionalForm(sentence.getWord(i).getName(), minCount)));
+        }
+        return normalized;
+    }
+
+    /**
+     * Returns the exceptional form of the given word. Words containing numerals are represented by _num_, words
+     * occurring less than minCount times in the lexicon are represented by _rare_, other words are returned as they
+     * are.
+     * @param word Word to be converted.
+     * @param minCount Minimum frequency for the words to be considered as rare.
+     * @return _num_, _rare_ or the word itself.
+     */
+    protected String exceptionalForm(String word, int minCount){
+        if (NUMBER_PATTERN.matcher(word).matches() || (DECIMAL_PATTERN.matcher(word).matches() && !word.equals("."))){
+            return "_num_";
+        }
+        if (dictionary.count(word) < minCount){
+            return "_rare_";
         }
+        return word;
     }
 
     /**
@@ -254,6 +643,8 @@ public class ContextFreeGrammar {
      */
     protected void updateTypes(){
         HashSet<String> nonTerminals = new HashSet<>();
+        checkNotFrozen();
+        compiledGrammar = null;
         for (Rule rule: rules){
             nonTerminals.add(rule.leftHandSide.getName());
         }
@@ -406,15 +797,94 @@ public class ContextFreeGrammar {
         }
     }
 
+    /**
+     * Writes the rules, the lexicon and the compiled symbol ids of this grammar to a binary snapshot, which can be
+     * loaded with {@link #readSnapshot(Path)} without parsing or sorting. Converting the grammar to Chomsky
+     * Normal Form before writing stores the converted grammar, so the conversion is done once. The snapshot is written
+     * to a temporary file in the same folder, which is moved into place only after it is written completely, so a
+     * failed write never leaves a truncated snapshot behind.
+     * @param snapshotFileName File name of the grammar snapshot.
+     * @throws IOException If the snapshot can not be written.
+     */
+    public void writeSnapshot(String snapshotFileName) throws IOException {
+        CompiledGrammar grammar = compile();
+        Path snapshotFile = Paths.get(snapshotFileName).toAbsolutePath();
+        Path temporaryFile = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        boolean written = false;
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))){
+                output.writeInt(SNAPSHOT_MAGIC);
+                output.writeInt(SNAPSHOT_VERSION);
+                output.writeInt(minCount);
+                output.writeInt(grammar.getSymbolCount());
+                for (int i = 0; i < grammar.getSymbolCount(); i++){
+                    writeString(output, grammar.getSymbol(i).getName());
+                }
+                output.writeInt(grammar.getRuleCount());
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    output.writeInt(grammar.getLeftHandSide(i));
+                }
+                int start = 0;
+                output.writeInt(start);
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    start += grammar.getRightHandSideSize(i);
+                    output.writeInt(start);
+                }
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    for (int j = 0; j < grammar.getRightHandSideSize(i); j++){
+                        output.writeInt(grammar.getRightHandSideAt(i, j));
+                    }
+                }
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    output.writeByte(grammar.getType(i).ordinal());
+                }
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    output.writeDouble(grammar.getRule(i).getProbability());
+                }
+                for (int i = 0; i < grammar.getRuleCount(); i++){
+                    output.writeDouble(grammar.getRule(i).getLogProbability());
+                }
+                for (Rule rule : rulesRightSorted){
+                    output.writeInt(grammar.getRuleId(rule));
+                }
+                output.writeInt(dictionary.size());
+                for (Map.Entry<String, Integer> entry : dictionary.entrySet()){
+                    writeString(output, entry.getKey());
+                    output.writeInt(entry.getValue());
+                }
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            written = true;
+        } finally {
+            if (!written){
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes.
+     * @param output Output stream.
+     * @param value String to be written.
+     * @throws IOException If the string can not be written.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
     /**
      * Inserts a new rule into the correct position in the sorted rules and rulesRightSorted array lists.
      * @param newRule Rule to be inserted into the sorted array lists.
      */
     public void addRule(Rule newRule){
         int pos;
+        checkNotFrozen();
         Comparator<Rule> comparator = new RuleComparator();
         pos = Collections.binarySearch(rules, newRule, comparator);
         if (pos < 0){
+            compiledGrammar = null;
             rules.add(-pos - 1, newRule);
             Comparator<Rule> rightComparator = new RuleRightSideComparator();
             pos = Collections.binarySearch(rulesRightSorted, newRule, rightComparator);
@@ -432,9 +902,11 @@ public class ContextFreeGrammar {
      */
     public void removeRule(Rule rule){
         int pos, posUp, posDown;
+        checkNotFrozen();
         Comparator<Rule> comparator = new RuleComparator();
         pos = Collections.binarySearch(rules, rule, comparator);
         if (pos >= 0){
+            compiledGrammar = null;
             rules.remove(pos);
             Comparator<Rule> rightComparator = new RuleRightSideComparator();
             pos = Collections.binarySearch(rulesRightSorted, rule, rightComparator);
@@ -601,96 +1073,143 @@ public class ContextFreeGrammar {
     }
 
     /**
-     * Returns the symbol on the right side of the first rule with one non-terminal symbol on the right hand side, that
-     * is it returns S of the first rule such as X -&gt;  S. S should also not be in the given removed list.
-     * @param removedList Discarded list for symbol S.
-     * @return The symbol on the right side of the first rule with one non-terminal symbol on the right hand side. The
-     * symbol to be returned should also not be in the given discarded list.
+     * In conversion to Chomsky Normal Form, the rule X -&gt;  Y and the rule Y -&gt;  beta are replaced with the rule
+     * X -&gt;  beta. This method constructs the new rule.
+     * @param rule Rule X -&gt;  Y.
+     * @param candidate Rule Y -&gt;  beta.
+     * @return New rule X -&gt;  beta.
      */
-    protected Symbol getSingleNonTerminalCandidateToRemove(ArrayList<Symbol> removedList){
-        Symbol removeCandidate = null;
-        for (Rule rule:rules) {
-            if (rule.type == RuleType.SINGLE_NON_TERMINAL && !rule.leftRecursive() && !removedList.contains(rule.getRightHandSideAt(0))) {
-                removeCandidate = rule.getRightHandSideAt(0);
-                break;
-            }
-        }
-        return removeCandidate;
+    protected Rule unitClosureRule(Rule rule, Rule candidate){
+        return new Rule(rule.leftHandSide, (ArrayList<Symbol>) candidate.getRightHandSide().clone(), candidate.getType());
     }
 
     /**
-     * Returns all rules with more than two non-terminal symbols on the right hand side, that is it returns all
-     * non-terminal rules such as X -&gt;  ABC...
-     * @return All rules with more than two non-terminal symbols on the right hand side.
+     * In conversion to Chomsky Normal Form, rules like A -&gt;  BC... are replaced with A -&gt;  X1... and X1 -&gt;  BC. This
+     * method constructs the new rule X1 -&gt;  BC.
+     * @param newSymbol Non-terminal symbol X1.
+     * @param rightHandSide Non-terminal symbols B and C.
+     * @return New rule X1 -&gt;  BC.
      */
-    protected Rule getMultipleNonTerminalCandidateToUpdate(){
-        Rule removeCandidate = null;
-        for (Rule rule:rules) {
-            if (rule.type == RuleType.MULTIPLE_NON_TERMINAL) {
-                removeCandidate = rule;
-                break;
+    protected Rule binarizedRule(Symbol newSymbol, ArrayList<Symbol> rightHandSide){
+        return new Rule(newSymbol, rightHandSide, RuleType.TWO_NON_TERMINAL);
+    }
+
+    /**
+     * Returns the symbol on the right side of the first rule in the given candidate set whose right side symbol is not
+     * removed yet, that is the right side of the first rule like X -&gt;  Y of the grammar that is not left recursive and
+     * whose Y is not removed. Rules with removed right side symbols are dropped from the set, since the removed symbols
+     * are never added back.
+     * @param candidates Rules like X -&gt;  Y in the grammar, sorted as the rules of the grammar.
+     * @param removedSymbols Names of the removed symbols.
+     * @return The symbol on the right side of the first candidate rule, null if there is no such rule.
+     */
+    private Symbol nextSingleNonTerminalCandidate(TreeSet<Rule> candidates, HashSet<String> removedSymbols){
+        while (!candidates.isEmpty()){
+            Rule first = candidates.first();
+            if (!removedSymbols.contains(first.getRightHandSideAt(0).getName())){
+                return first.getRightHandSideAt(0);
             }
+            candidates.pollFirst();
         }
-        return removeCandidate;
+        return null;
     }
 
     /**
      * In conversion to Chomsky Normal Form, rules like X -&gt;  Y are removed and new rules for every rule as Y -&gt;  beta are
      * replaced with X -&gt;  beta. The method first identifies all X -&gt;  Y rules. For every such rule, all rules Y -&gt;  beta
      * are identified. For every such rule, the method adds a new rule X -&gt;  beta. Every Y -&gt;  beta rule is then deleted.
+     * The rules like X -&gt;  Y are kept in a sorted set updated with every added and removed rule, so the next symbol to
+     * be removed is found without scanning all rules of the grammar.
      */
     private void removeSingleNonTerminalFromRightHandSide(){
-        ArrayList<Symbol> nonTerminalList;
+        HashSet<String> removedSymbols = new HashSet<>();
+        TreeSet<Rule> candidates = new TreeSet<>(new RuleComparator());
         Symbol removeCandidate;
         ArrayList<Rule> ruleList;
         ArrayList<Rule> candidateList;
-        nonTerminalList = new ArrayList<>();
-        removeCandidate = getSingleNonTerminalCandidateToRemove(nonTerminalList);
+        Rule newRule;
+        for (Rule rule : rules){
+            if (rule.type == RuleType.SINGLE_NON_TERMINAL && !rule.leftRecursive()){
+                candidates.add(rule);
+            }
+        }
+        removeCandidate = nextSingleNonTerminalCandidate(candidates, removedSymbols);
         while (removeCandidate != null){
             ruleList = getRulesWithRightSideX(removeCandidate);
             for (Rule rule: ruleList){
                 candidateList = getRulesWithLeftSideX(removeCandidate);
                 for (Rule candidate: candidateList){
-                    addRule(new Rule(rule.leftHandSide, (ArrayList<Symbol>) candidate.getRightHandSide().clone(), candidate.getType()));
+                    newRule = unitClosureRule(rule, candidate);
+                    addRule(newRule);
+                    if (newRule.type == RuleType.SINGLE_NON_TERMINAL && !newRule.leftRecursive() && searchRule(newRule) == newRule){
+                        candidates.add(newRule);
+                    }
                 }
                 removeRule(rule);
+                candidates.remove(rule);
             }
-            nonTerminalList.add(removeCandidate);
-            removeCandidate = getSingleNonTerminalCandidateToRemove(nonTerminalList);
+            removedSymbols.add(removeCandidate.getName());
+            removeCandidate = nextSingleNonTerminalCandidate(candidates, removedSymbols);
         }
     }
 
     /**
-     * In conversion to Chomsky Normal Form, rules like A -&gt;  BC... are replaced with A -&gt;  X1... and X1 -&gt;  BC. This
-     * method replaces B and C non-terminals on the right hand side with X1 for all rules in the grammar.
-     * @param first Non-terminal symbol B.
-     * @param second Non-terminal symbol C.
-     * @param with Non-terminal symbol X1.
+     * Adds the given rule to the buckets of the adjacent symbol pairs on its right hand side.
+     * @param pairIndex Rules indexed by the names of adjacent symbol pairs.
+     * @param rule Rule to be indexed.
+     * @param from Position of the first pair to be indexed.
+     * @param to Position of the last pair to be indexed.
      */
-    protected void updateAllMultipleNonTerminalWithNewRule(Symbol first, Symbol second, Symbol with){
-        for (Rule rule : rules) {
-            if (rule.type == RuleType.MULTIPLE_NON_TERMINAL){
-                rule.updateMultipleNonTerminal(first, second, with);
-            }
+    private void indexSymbolPairs(HashMap<String, ArrayList<Rule>> pairIndex, Rule rule, int from, int to){
+        for (int i = Math.max(from, 0); i <= to && i < rule.getRightHandSideSize() - 1; i++){
+            pairIndex.computeIfAbsent(rule.getRightHandSideAt(i).getName() + "\n" + rule.getRightHandSideAt(i + 1).getName(), k -> new ArrayList<>()).add(rule);
         }
     }
 
     /**
      * In conversion to Chomsky Normal Form, rules like A -&gt;  BC... are replaced with A -&gt;  X1... and X1 -&gt;  BC. This
      * method determines such rules and for every such rule, it adds new rule X1-&gt; BC and updates rule A-&gt; BC to A-&gt; X1.
+     * The rules like A -&gt;  BC... are visited in the order of the grammar, and each rule is indexed by the adjacent
+     * symbol pairs on its right hand side, so only the rules containing BC are updated for X1. Replaced pairs are not
+     * removed from the index, updating a rule not containing the pair anymore has no effect.
      */
     private void updateMultipleNonTerminalFromRightHandSide(){
         Rule updateCandidate;
-        int newVariableCount = 0;
-        updateCandidate = getMultipleNonTerminalCandidateToUpdate();
-        while (updateCandidate != null){
+        int newVariableCount = 0, position = 0, i;
+        ArrayList<Rule> multipleRules = new ArrayList<>();
+        HashMap<String, ArrayList<Rule>> pairIndex = new HashMap<>();
+        Set<Rule> updatedRules;
+        for (Rule rule : rules){
+            if (rule.type == RuleType.MULTIPLE_NON_TERMINAL){
+                multipleRules.add(rule);
+                indexSymbolPairs(pairIndex, rule, 0, rule.getRightHandSideSize());
+            }
+        }
+        while (true){
+            while (position < multipleRules.size() && multipleRules.get(position).type != RuleType.MULTIPLE_NON_TERMINAL){
+                position++;
+            }
+            if (position == multipleRules.size()){
+                break;
+            }
+            updateCandidate = multipleRules.get(position);
             ArrayList<Symbol> newRightHandSide = new ArrayList<>();
             Symbol newSymbol = new Symbol("X" + newVariableCount);
-            newRightHandSide.add(updateCandidate.getRightHandSideAt(0));
-            newRightHandSide.add(updateCandidate.getRightHandSideAt(1));
-            updateAllMultipleNonTerminalWithNewRule(updateCandidate.getRightHandSideAt(0), updateCandidate.getRightHandSideAt(1), newSymbol);
-            addRule(new Rule(newSymbol, newRightHandSide, RuleType.TWO_NON_TERMINAL));
-            updateCandidate = getMultipleNonTerminalCandidateToUpdate();
+            Symbol first = updateCandidate.getRightHandSideAt(0);
+            Symbol second = updateCandidate.getRightHandSideAt(1);
+            newRightHandSide.add(first);
+            newRightHandSide.add(second);
+            updatedRules = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Rule rule : pairIndex.get(first.getName() + "\n" + second.getName())){
+                if (rule.type == RuleType.MULTIPLE_NON_TERMINAL && updatedRules.add(rule) && rule.updateMultipleNonTerminal(first, second, newSymbol)){
+                    i = 0;
+                    while (rule.getRightHandSideAt(i) != newSymbol){
+                        i++;
+                    }
+                    indexSymbolPairs(pairIndex, rule, i - 1, i);
+                }
+            }
+            addRule(binarizedRule(newSymbol, newRightHandSide));
             newVariableCount++;
         }
     }
@@ -698,15 +1217,66 @@ public class ContextFreeGrammar {
     /**
      * The method converts the grammar into Chomsky normal form. First, rules like X -&gt;  Y are removed and new rules for
      * every rule as Y -&gt;  beta are replaced with X -&gt;  beta. Second, rules like A -&gt;  BC... are replaced with A -&gt;  X1...
-     * and X1 -&gt;  BC.
+     * and X1 -&gt;  BC. Finally, the compiled grammar with its binary rule index is built for the converted rules.
      */
     public void convertToChomskyNormalForm(){
+        checkNotFrozen();
         removeSingleNonTerminalFromRightHandSide();
         updateMultipleNonTerminalFromRightHandSide();
         Comparator<Rule> comparator = new RuleComparator();
         rules.sort(comparator);
         Comparator<Rule> rightComparator = new RuleRightSideComparator();
         rulesRightSorted.sort(rightComparator);
+        compiledGrammar = new CompiledGrammar(rules);
+    }
+
+    /**
+     * Returns the compiled form of the grammar, where every symbol is mapped to a dense integer id and the rules are
+     * stored in primitive arrays indexed by those ids. The compiled grammar is constructed on the first call and
+     * cached until the rules of the grammar change, so the parsers can call this method for every sentence.
+     * @return Compiled form of the grammar.
+     */
+    public CompiledGrammar compile(){
+        if (frozen){
+            return compiledGrammar;
+        }
+        synchronized (this){
+            if (compiledGrammar == null){
+                compiledGrammar = new CompiledGrammar(rules);
+            }
+            return compiledGrammar;
+        }
+    }
+
+    /**
+     * Freezes the grammar. The compiled grammar is constructed once, and after this call the rules of the grammar can
+     * not be changed anymore; addRule, removeRule and convertToChomskyNormalForm throw IllegalStateException. A frozen
+     * grammar is only read by the parsers, so any number of parser threads can share it without copies or locks.
+     * @return The grammar itself.
+     */
+    public synchronized ContextFreeGrammar freeze(){
+        if (compiledGrammar == null){
+            compiledGrammar = new CompiledGrammar(rules);
+        }
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Accessor for the frozen attribute.
+     * @return True, if the grammar is frozen; false otherwise.
+     */
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    /**
+     * Throws IllegalStateException if the grammar is frozen. Called by the methods changing the rules of the grammar.
+     */
+    protected void checkNotFrozen(){
+        if (frozen){
+            throw new IllegalStateException("Rules of a frozen grammar can not be changed");
+        }
     }
 
     /**
@@ -0,0 +1,140 @@
+package ContextFreeGrammar;
+
+import java.util.Arrays;
+
+public class Lexicon {
+
+    private static final int[] EMPTY = new int[0];
+    private static final double[] EMPTY_PROBABILITIES = new double[0];
+
+    private final int[][] tags;
+    private final int[][] rules;
+    private final double[][] logProbabilities;
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * Constructor for the Lexicon class. For every word of the compiled grammar, stores the part of speech tags X of
+     * the terminal rules X -&gt;  word together with the ids and log probabilities of those rules in primitive arrays.
+     * The (tag, word) pairs are also stored in an open addressing hash table, so checking whether a tag can emit a
+     * word is a single probe.
+     * @param grammar Compiled grammar whose terminal rules form the lexicon.
+     */
+    public Lexicon(CompiledGrammar grammar){
+        int capacity = 2, count = 0, position;
+        int[] wordRules;
+        tags = new int[grammar.getSymbolCount()][];
+        rules = new int[grammar.getSymbolCount()][];
+        logProbabilities = new double[grammar.getSymbolCount()][];
+        for (int word = 0; word < grammar.getSymbolCount(); word++){
+            wordRules = grammar.getTerminalRulesWithRightSideX(word);
+            if (wordRules.length > 0){
+                rules[word] = wordRules;
+                tags[word] = new int[wordRules.length];
+                logProbabilities[word] = new double[wordRules.length];
+                for (int i = 0; i < wordRules.length; i++){
+                    tags[word][i] = grammar.getLeftHandSide(wordRules[i]);
+                    logProbabilities[word][i] = grammar.getRule(wordRules[i]).getLogProbability();
+                }
+                count += wordRules.length;
+            }
+        }
+        while (capacity < 2 * count){
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        Arrays.fill(keys, -1);
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int word = 0; word < rules.length; word++){
+            if (rules[word] != null){
+                for (int i = 0; i < rules[word].length; i++){
+                    position = find(CompiledGrammar.pairKey(tags[word][i], word));
+                    if (keys[position] == -1){
+                        keys[position] = CompiledGrammar.pairKey(tags[word][i], word);
+                        values[position] = rules[word][i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the given key, or the empty slot where the key should be inserted.
+     * @param key Packed (tag, word) pair to be searched.
+     * @return Slot of the key in the table.
+     */
+    private int find(long key){
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int position = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[position] != -1 && keys[position] != key){
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the ids of the part of speech tags which can emit the given word.
+     * @param word Id of the word.
+     * @return Ids of the tags X of the rules X -&gt;  word. The returned array should not be modified.
+     */
+    public int[] getTags(int word){
+        if (word < 0 || word >= tags.length || tags[word] == null){
+            return EMPTY;
+        }
+        return tags[word];
+    }
+
+    /**
+     * Returns the ids of the terminal rules emitting the given word, in the same order as {@link #getTags(int)}.
+     * @param word Id of the word.
+     * @return Ids of the rules X -&gt;  word. The returned array should not be modified.
+     */
+    public int[] getRules(int word){
+        if (word < 0 || word >= rules.length || rules[word] == null){
+            return EMPTY;
+        }
+        return rules[word];
+    }
+
+    /**
+     * Returns the log probabilities of the terminal rules emitting the given word, in the same order as
+     * {@link #getTags(int)}.
+     * @param word Id of the word.
+     * @return Log probabilities of the rules X -&gt;  word. The returned array should not be modified.
+     */
+    public double[] getLogProbabilities(int word){
+        if (word < 0 || word >= logProbabilities.length || logProbabilities[word] == null){
+            return EMPTY_PROBABILITIES;
+        }
+        return logProbabilities[word];
+    }
+
+    /**
+     * Returns the id of the terminal rule tag -&gt;  word.
+     * @param tag Id of the part of speech tag.
+     * @param word Id of the word.
+     * @return Id of the rule, -1 if the tag can not emit the word.
+     */
+    public int getRule(int tag, int word){
+        if (tag < 0 || word < 0){
+            return -1;
+        }
+        int position = find(CompiledGrammar.pairKey(tag, word));
+        if (keys[position] == -1){
+            return -1;
+        }
+        return values[position];
+    }
+
+    /**
+     * Checks if the given part of speech tag can emit the given word.
+     * @param tag Id of the part of speech tag.
+     * @param word Id of the word.
+     * @return True, if there is a rule tag -&gt;  word; false otherwise.
+     */
+    public boolean canEmit(int tag, int word){
+        return getRule(tag, word) != -1;
+    }
+}
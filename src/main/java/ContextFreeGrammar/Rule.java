@@ -8,6 +8,7 @@ public class Rule {
     protected Symbol leftHandSide;
     protected ArrayList<Symbol> rightHandSide;
     protected RuleType type;
+    private int hash;
 
     /**
      * Empty constructor for the rule class.
@@ -76,13 +77,27 @@ public class Rule {
         }
     }
 
+    /**
+     * Checks if the given object is a rule with the same left hand side and the same right hand side symbols. The
+     * symbols are compared by name without constructing the string forms of the rules, and rules with different hash
+     * codes are rejected before any symbol is compared. The probabilities of probabilistic rules are not compared,
+     * so X -&gt;  YZ is the same rule whatever its probability is.
+     * @param aThat Object to be compared.
+     * @return True, if the given object is the same rule; false otherwise.
+     */
     @Override public boolean equals(Object aThat) {
         if (this == aThat)
             return true;
         if (!(aThat instanceof Rule))
             return false;
         Rule rule = (Rule)aThat;
-        return toString().equals(rule.toString());
+        if (hashCode() != rule.hashCode() || rightHandSide.size() != rule.rightHandSide.size() || !leftHandSide.getName().equals(rule.leftHandSide.getName()))
+            return false;
+        for (int i = 0; i < rightHandSide.size(); i++){
+            if (!rightHandSide.get(i).getName().equals(rule.rightHandSide.get(i).getName()))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -109,6 +124,7 @@ public class Rule {
                 rightHandSide.remove(i + 1);
                 rightHandSide.remove(i);
                 rightHandSide.add(i, with);
+                hash = 0;
                 if (rightHandSide.size() == 2){
                     type = RuleType.TWO_NON_TERMINAL;
                 }
@@ -142,6 +158,23 @@ public class Rule {
         return rightHandSide;
     }
 
+    /**
+     * Returns the probability of the rule. Rules of a context free grammar are not weighted, so the probability is 1.
+     * @return Probability of the rule.
+     */
+    public double getProbability(){
+        return 1.0;
+    }
+
+    /**
+     * Returns the logarithm of the probability of the rule. Rules of a context free grammar are not weighted, so the
+     * log probability is 0.
+     * @return Log probability of the rule.
+     */
+    public double getLogProbability(){
+        return 0.0;
+    }
+
     /**
      * Returns number of symbols on the right hand side.
      * @return Number of symbols on the right hand side.
@@ -171,9 +204,23 @@ public class Rule {
         return result.toString();
     }
 
+    /**
+     * Returns the hash code of the rule, computed from the hash codes of the names of the left hand side and right
+     * hand side symbols. The hash code is computed on the first call and cached, and the cache is cleared when the
+     * right hand side is updated during the conversion to Chomsky Normal Form.
+     * @return Hash code of the rule.
+     */
     @Override
     public int hashCode(){
-        return toString().hashCode();
+        int result = hash;
+        if (result == 0){
+            result = leftHandSide.getName().hashCode();
+            for (Symbol symbol : rightHandSide){
+                result = 31 * result + symbol.getName().hashCode();
+            }
+            hash = result;
+        }
+        return result;
     }
 
 }
@@ -0,0 +1,73 @@
+package ContextFreeGrammar;
+
+import ParseTree.Symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class SymbolTable {
+
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+    private final ArrayList<Symbol> symbols = new ArrayList<>();
+
+    /**
+     * Empty constructor for the SymbolTable class.
+     */
+    public SymbolTable(){
+    }
+
+    /**
+     * Interns the given symbol. If a symbol with the same name is already in the table, its id is returned, otherwise
+     * the symbol is appended to the table and receives the next dense id.
+     * @param symbol Symbol to be interned.
+     * @return Id of the symbol.
+     */
+    public int add(Symbol symbol){
+        Integer id = symbolIds.get(symbol.getName());
+        if (id == null){
+            id = symbols.size();
+            symbolIds.put(symbol.getName(), id);
+            symbols.add(symbol);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the symbol with the given name.
+     * @param name Name of the symbol.
+     * @return Id of the symbol, -1 if the symbol is not in the table.
+     */
+    public int getId(String name){
+        Integer id = symbolIds.get(name);
+        if (id == null){
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given symbol.
+     * @param symbol Symbol to be searched.
+     * @return Id of the symbol, -1 if the symbol is not in the table.
+     */
+    public int getId(Symbol symbol){
+        return getId(symbol.getName());
+    }
+
+    /**
+     * Returns the symbol with the given id.
+     * @param id Id of the symbol.
+     * @return Symbol with the given id.
+     */
+    public Symbol getSymbol(int id){
+        return symbols.get(id);
+    }
+
+    /**
+     * Returns number of symbols in the table.
+     * @return Number of symbols in the table.
+     */
+    public int size(){
+        return symbols.size();
+    }
+}
@@ -0,0 +1,62 @@
+package ContextFreeGrammar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class TaskRunner {
+
+    /**
+     * Runs the given tasks with the given executor and returns their results in the order of the tasks. The tasks are
+     * awaited in the order they complete, so as soon as any task fails, or the calling thread is interrupted while
+     * waiting, the tasks not completed yet are cancelled and a failed batch does not keep the executor busy. The
+     * exception of a failed task is thrown as it is if it is unchecked, and wrapped in an IllegalStateException
+     * otherwise.
+     * @param tasks Tasks to be run.
+     * @param executor Executor service running the tasks.
+     * @param <T> Type of the results of the tasks.
+     * @return Results of the tasks, in the order of the given tasks.
+     */
+    public static <T> ArrayList<T> runAll(List<? extends Callable<T>> tasks, ExecutorService executor){
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        HashMap<Future<T>, Integer> positions = new HashMap<>();
+        ArrayList<T> result = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        Future<T> future;
+        boolean completed = false;
+        try {
+            for (Callable<T> task : tasks){
+                positions.put(completionService.submit(task), positions.size());
+            }
+            for (int i = 0; i < tasks.size(); i++){
+                future = completionService.take();
+                result.set(positions.get(future), future.get());
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (!completed){
+                for (Future<T> pending : positions.keySet()){
+                    pending.cancel(true);
+                }
+            }
+        }
+        return result;
+    }
+}
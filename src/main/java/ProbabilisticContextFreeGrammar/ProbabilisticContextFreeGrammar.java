@@ -10,8 +10,10 @@ import ParseTree.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
 
@@ -49,6 +51,20 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
         this.minCount = minCount;
     }
 
+    /**
+     * Loads a probabilistic grammar from a snapshot written by {@link #writeSnapshot(String)}, the probabilities and
+     * log probabilities of the rules are read as they are.
+     * @param snapshotFile Path of the grammar snapshot.
+     * @return Probabilistic grammar stored in the snapshot.
+     * @throws IOException If the file can not be read, is not a grammar snapshot of this version, or is truncated or
+     * corrupt.
+     */
+    public static ProbabilisticContextFreeGrammar readSnapshot(Path snapshotFile) throws IOException{
+        ProbabilisticContextFreeGrammar grammar = new ProbabilisticContextFreeGrammar();
+        grammar.loadSnapshot(snapshotFile);
+        return grammar;
+    }
+
     /**
      * Another constructor for the ProbabilisticContextFreeGrammar class. Constructs the lexicon from the leaf nodes of
      * the trees in the given treebank. Extracts rules from the non-leaf nodes of the trees in the given treebank. Also
@@ -57,26 +73,13 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
      * @param minCount Minimum frequency parameter.
      */
     public ProbabilisticContextFreeGrammar(TreeBank treeBank, int minCount){
-        ArrayList<Symbol> variables;
-        ArrayList<Rule> candidates;
-        int total;
         constructDictionary(treeBank);
         for (int i = 0; i < treeBank.size(); i++){
             ParseTree parseTree = treeBank.get(i);
             updateExceptionalWordsInTree(parseTree, minCount);
             addRules(parseTree.getRoot());
         }
-        variables = getLeftSide();
-        for (Symbol variable: variables){
-            candidates = getRulesWithLeftSideX(variable);
-            total = 0;
-            for (Rule candidate: candidates){
-                total += ((ProbabilisticRule) candidate).getCount();
-            }
-            for (Rule candidate: candidates){
-                ((ProbabilisticRule) candidate).normalizeProbability(total);
-            }
-        }
+        normalizeProbabilities();
         updateTypes();
         this.minCount = minCount;
     }
@@ -89,17 +92,65 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
      * @param minCount Minimum frequency parameter.
      */
     public ProbabilisticContextFreeGrammar(TreeBankDrawable treeBank, int minCount){
-        ArrayList<Symbol> variables;
-        ArrayList<Rule> candidates;
-        int total;
         constructDictionary(treeBank);
         for (int i = 0; i < treeBank.size(); i++){
             ParseTreeDrawable parseTree = treeBank.get(i);
             updateExceptionalWordsInTree(parseTree, minCount);
             addRules((ParseNodeDrawable)parseTree.getRoot());
         }
-        variables = getLeftSide();
-        for (Symbol variable: variables){
+        normalizeProbabilities();
+        updateTypes();
+        this.minCount = minCount;
+    }
+
+    /**
+     * Another constructor for the ProbabilisticContextFreeGrammar class. Induces the grammar from the tree files in
+     * the given folder, reading one tree at a time in two passes as in
+     * {@link ContextFreeGrammar#ContextFreeGrammar(File, int)}. The occurrences of each rule are counted during the
+     * second pass and the probabilities are normalized once all files are read.
+     * @param treeBankFolder Folder containing one constituency tree per file.
+     * @param minCount Minimum frequency parameter.
+     */
+    public ProbabilisticContextFreeGrammar(File treeBankFolder, int minCount){
+        super(treeBankFolder, minCount);
+        normalizeProbabilities();
+    }
+
+    /**
+     * Another constructor for the ProbabilisticContextFreeGrammar class. Induces the grammar from the tree files in
+     * the given folder, counting shards of the files concurrently with the given executor. The rule counts of the
+     * shards are merged, and the probabilities are normalized once after the merge.
+     * @param treeBankFolder Folder containing one constituency tree per file.
+     * @param minCount Minimum frequency parameter.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     */
+    public ProbabilisticContextFreeGrammar(File treeBankFolder, int minCount, ExecutorService executor){
+        super(treeBankFolder, minCount, executor);
+        normalizeProbabilities();
+    }
+
+    /**
+     * Another constructor for the ProbabilisticContextFreeGrammar class. Induces the same grammar as
+     * {@link #ProbabilisticContextFreeGrammar(TreeBank, int)}, counting shards of the treebank concurrently with the
+     * given executor. The rule counts of the shards are merged, and the probabilities are normalized once after the
+     * merge.
+     * @param treeBank Treebank containing the constituency trees.
+     * @param minCount Minimum frequency parameter.
+     * @param executor Executor service counting the shards, null for counting on the calling thread.
+     */
+    public ProbabilisticContextFreeGrammar(TreeBank treeBank, int minCount, ExecutorService executor){
+        super(treeBank, minCount, executor);
+        normalizeProbabilities();
+    }
+
+    /**
+     * Normalizes the counts of the rules to probabilities, so that the probabilities of the rules with the same left
+     * hand side sum up to 1.
+     */
+    private void normalizeProbabilities(){
+        ArrayList<Rule> candidates;
+        int total;
+        for (Symbol variable: getLeftSide()){
             candidates = getRulesWithLeftSideX(variable);
             total = 0;
             for (Rule candidate: candidates){
@@ -109,8 +160,6 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
                 ((ProbabilisticRule) candidate).normalizeProbability(total);
             }
         }
-        updateTypes();
-        this.minCount = minCount;
     }
 
     /**
@@ -250,7 +299,7 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
         if (parseNode.numberOfChildren() > 0){
             rule = toRule(parseNode, true);
             existedRule = searchRule(rule);
-            sum = Math.log(((ProbabilisticRule)existedRule).getProbability());
+            sum = existedRule.getLogProbability();
             if (existedRule.getType() != RuleType.TERMINAL){
                 for (int i = 0; i < parseNode.numberOfChildren(); i++){
                     ParseNode childNode = parseNode.getChild(i);
@@ -271,65 +320,57 @@ public class ProbabilisticContextFreeGrammar extends ContextFreeGrammar {
     }
 
     /**
-     * In conversion to Chomsky Normal Form, rules like X -> Y are removed and new rules for every rule as Y -> beta are
-     * replaced with X -> beta. The method first identifies all X -> Y rules. For every such rule, all rules Y -> beta
-     * are identified. For every such rule, the method adds a new rule X -> beta. Every Y -> beta rule is then deleted.
-     * The method also calculates the probability of the new rules based on the previous rules.
+     * Converts a parse node to a probabilistic rule while inducing the grammar from tree files.
+     * @param parseNode Parse node for which a rule will be created.
+     * @return A new probabilistic rule constructed from the parse node and its children, null if a child has no data.
      */
-    private void removeSingleNonTerminalFromRightHandSide(){
-        ArrayList<Symbol> nonTerminalList;
-        Symbol removeCandidate;
-        ArrayList<Rule> ruleList;
-        ArrayList<Rule> candidateList;
-        nonTerminalList = new ArrayList<>();
-        removeCandidate = getSingleNonTerminalCandidateToRemove(nonTerminalList);
-        while (removeCandidate != null){
-            ruleList = getRulesWithRightSideX(removeCandidate);
-            for (Rule rule: ruleList){
-                candidateList = getRulesWithLeftSideX(removeCandidate);
-                for (Rule candidate: candidateList){
-                    addRule(new ProbabilisticRule(rule.getLeftHandSide(), (ArrayList<Symbol>) candidate.getRightHandSide().clone(), candidate.getType(), ((ProbabilisticRule) rule).getProbability() * ((ProbabilisticRule) candidate).getProbability()));
-                }
-                removeRule(rule);
-            }
-            nonTerminalList.add(removeCandidate);
-            removeCandidate = getSingleNonTerminalCandidateToRemove(nonTerminalList);
-        }
+    protected Rule inducedRule(ParseNode parseNode){
+        return toRule(parseNode, true);
     }
 
     /**
-     * In conversion to Chomsky Normal Form, rules like A -> BC... are replaced with A -> X1... and X1 -> BC. This
-     * method determines such rules and for every such rule, it adds new rule X1->BC and updates rule A->BC to A->X1.
-     * The method sets the probability of the rules X1->BC to 1, and calculates the probability of the rules A -> X1...
+     * Sets the number of occurrences of the given probabilistic rule in the trees, after the grammar is induced from
+     * tree shards.
+     * @param rule Rule occurring in the trees.
+     * @param count Number of occurrences of the rule.
      */
-    private void updateMultipleNonTerminalFromRightHandSide(){
-        Rule updateCandidate;
-        int newVariableCount = 0;
-        updateCandidate = getMultipleNonTerminalCandidateToUpdate();
-        while (updateCandidate != null){
-            ArrayList<Symbol> newRightHandSide = new ArrayList<>();
-            Symbol newSymbol = new Symbol("X" + newVariableCount);
-            newRightHandSide.add(updateCandidate.getRightHandSideAt(0));
-            newRightHandSide.add(updateCandidate.getRightHandSideAt(1));
-            updateAllMultipleNonTerminalWithNewRule(updateCandidate.getRightHandSideAt(0), updateCandidate.getRightHandSideAt(1), newSymbol);
-            addRule(new ProbabilisticRule(newSymbol, newRightHandSide, RuleType.TWO_NON_TERMINAL, 1.0));
-            newVariableCount++;
-            updateCandidate = getMultipleNonTerminalCandidateToUpdate();
-        }
+    protected void countRule(Rule rule, int count){
+        ((ProbabilisticRule) rule).increment(count);
+    }
+
+    /**
+     * Constructs a probabilistic rule of the grammar loaded from a snapshot.
+     * @param leftHandSide Left hand side symbol of the rule.
+     * @param rightHandSide Right hand side symbols of the rule.
+     * @param type Type of the rule.
+     * @param probability Probability of the rule.
+     * @param logProbability Log probability of the rule.
+     * @return New probabilistic rule.
+     */
+    protected Rule snapshotRule(Symbol leftHandSide, ArrayList<Symbol> rightHandSide, RuleType type, double probability, double logProbability){
+        return new ProbabilisticRule(leftHandSide, rightHandSide, type, probability, logProbability);
+    }
+
+    /**
+     * In conversion to Chomsky Normal Form, the rule X -&gt;  Y and the rule Y -&gt;  beta are replaced with the rule
+     * X -&gt;  beta. The probability of the new rule is the product of the probabilities of the replaced rules.
+     * @param rule Rule X -&gt;  Y.
+     * @param candidate Rule Y -&gt;  beta.
+     * @return New rule X -&gt;  beta.
+     */
+    protected Rule unitClosureRule(Rule rule, Rule candidate){
+        return new ProbabilisticRule(rule.getLeftHandSide(), (ArrayList<Symbol>) candidate.getRightHandSide().clone(), candidate.getType(), ((ProbabilisticRule) rule).getProbability() * ((ProbabilisticRule) candidate).getProbability());
     }
 
     /**
-     * The method converts the grammar into Chomsky normal form. First, rules like X -&gt;  Y are removed and new rules for
-     * every rule as Y -&gt;  beta are replaced with X -&gt;  beta. Second, rules like A -&gt;  BC... are replaced with A -&gt;  X1...
-     * and X1 -&gt;  BC.
+     * In conversion to Chomsky Normal Form, rules like A -&gt;  BC... are replaced with A -&gt;  X1... and X1 -&gt;  BC. The
+     * probability of the new rule X1 -&gt;  BC is 1, so the probability of the rule A -&gt;  X1... stays the same.
+     * @param newSymbol Non-terminal symbol X1.
+     * @param rightHandSide Non-terminal symbols B and C.
+     * @return New rule X1 -&gt;  BC.
      */
-    public void convertToChomskyNormalForm(){
-        removeSingleNonTerminalFromRightHandSide();
-        updateMultipleNonTerminalFromRightHandSide();
-        Comparator<Rule> comparator = new RuleComparator();
-        rules.sort(comparator);
-        Comparator<Rule> rightComparator = new RuleRightSideComparator();
-        rulesRightSorted.sort(rightComparator);
+    protected Rule binarizedRule(Symbol newSymbol, ArrayList<Symbol> rightHandSide){
+        return new ProbabilisticRule(newSymbol, rightHandSide, RuleType.TWO_NON_TERMINAL, 1.0);
     }
 
 }
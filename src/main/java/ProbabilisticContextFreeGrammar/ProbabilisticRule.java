@@ -8,6 +8,7 @@ import java.util.ArrayList;
 public class ProbabilisticRule extends Rule {
 
     private double probability;
+    private double logProbability = Double.NEGATIVE_INFINITY;
     private int count = 0;
 
     /**
@@ -21,6 +22,22 @@ public class ProbabilisticRule extends Rule {
     public ProbabilisticRule(Symbol leftHandSide, ArrayList<Symbol> rightHandSide, RuleType type, double probability){
         super(leftHandSide, rightHandSide, type);
         this.probability = probability;
+        this.logProbability = Math.log(probability);
+    }
+
+    /**
+     * Constructor for the probabilistic rule X -&gt;  beta with a known log probability, so the logarithm is not
+     * computed again. Used when the rules are loaded from a grammar snapshot.
+     * @param leftHandSide Non-terminal symbol X.
+     * @param rightHandSide beta. beta is a string of symbols from symbols (non-terminal)
+     * @param type Type of the rule.
+     * @param probability Probability of the rule
+     * @param logProbability Logarithm of the probability of the rule.
+     */
+    public ProbabilisticRule(Symbol leftHandSide, ArrayList<Symbol> rightHandSide, RuleType type, double probability, double logProbability){
+        super(leftHandSide, rightHandSide, type);
+        this.probability = probability;
+        this.logProbability = logProbability;
     }
 
     /**
@@ -49,6 +66,7 @@ public class ProbabilisticRule extends Rule {
             rightHandSide.add(new Symbol(rightSide[i]));
         }
         probability = Double.parseDouble(prob);
+        logProbability = Math.log(probability);
     }
 
     /**
@@ -59,6 +77,15 @@ public class ProbabilisticRule extends Rule {
         return probability;
     }
 
+    /**
+     * Accessor for the logProbability attribute. The logarithm of the probability is computed once whenever the
+     * probability changes, so parsers can add rule scores in log space without calling Math.log.
+     * @return Log probability of the rule.
+     */
+    public double getLogProbability(){
+        return logProbability;
+    }
+
     /**
      * Increments the count attribute.
      */
@@ -66,12 +93,21 @@ public class ProbabilisticRule extends Rule {
         count++;
     }
 
+    /**
+     * Increments the count attribute by the given number of occurrences.
+     * @param occurrences Number of occurrences to be added.
+     */
+    public void increment(int occurrences){
+        count += occurrences;
+    }
+
     /**
      * Calculates the probability from count and the given total value.
      * @param total Value used for calculating the probability.
      */
     public void normalizeProbability(int total){
         probability = count / (total + 0.0);
+        logProbability = Math.log(probability);
     }
 
     /**
@@ -0,0 +1,94 @@
+package ProbabilisticParser;
+
+public class Derivation<N> {
+
+    private final N node;
+    private final Hyperedge<N> edge;
+    private final int edgeIndex;
+    private final int[] ranks;
+    private final Derivation<N>[] children;
+    private final double logProbability;
+    private final long order;
+
+    /**
+     * Constructor for the Derivation class. A derivation of a node uses one of the incoming edges of the node and the
+     * ranks[i]'th best derivation of the i'th tail of the edge.
+     * @param node Node derived.
+     * @param edge Edge used in the derivation.
+     * @param edgeIndex Position of the edge among the incoming edges of the node.
+     * @param ranks Ranks of the derivations of the tails.
+     * @param children Derivations of the tails.
+     * @param order Creation order of the derivation, used to break ties between equally probable derivations.
+     */
+    public Derivation(N node, Hyperedge<N> edge, int edgeIndex, int[] ranks, Derivation<N>[] children, long order){
+        double logProbability = edge.getWeight();
+        this.node = node;
+        this.edge = edge;
+        this.edgeIndex = edgeIndex;
+        this.ranks = ranks;
+        this.children = children;
+        this.order = order;
+        for (Derivation<N> child : children){
+            logProbability += child.logProbability;
+        }
+        this.logProbability = logProbability;
+    }
+
+    /**
+     * Accessor for the node attribute.
+     * @return Node derived.
+     */
+    public N getNode(){
+        return node;
+    }
+
+    /**
+     * Accessor for the edge attribute.
+     * @return Edge used in the derivation.
+     */
+    public Hyperedge<N> getEdge(){
+        return edge;
+    }
+
+    /**
+     * Accessor for the edge index attribute.
+     * @return Position of the edge among the incoming edges of the node.
+     */
+    public int getEdgeIndex(){
+        return edgeIndex;
+    }
+
+    /**
+     * Returns the rank of the derivation of the tail at the given position.
+     * @param index Position of the tail.
+     * @return Rank of the derivation of the tail.
+     */
+    public int getRank(int index){
+        return ranks[index];
+    }
+
+    /**
+     * Returns the derivation of the tail at the given position.
+     * @param index Position of the tail.
+     * @return Derivation of the tail.
+     */
+    public Derivation<N> getChild(int index){
+        return children[index];
+    }
+
+    /**
+     * Accessor for the logProbability attribute.
+     * @return Log probability of the derivation.
+     */
+    public double getLogProbability(){
+        return logProbability;
+    }
+
+    /**
+     * Accessor for the order attribute.
+     * @return Creation order of the derivation.
+     */
+    public long getOrder(){
+        return order;
+    }
+}
@@ -0,0 +1,107 @@
+package ProbabilisticParser;
+
+import ContextFreeGrammar.CompiledGrammar;
+import ContextFreeGrammar.RuleType;
+import Corpus.Sentence;
+import SyntacticParser.Chart;
+
+import java.util.ArrayList;
+
+public class EarleyKBestExtractor extends KBestExtractor<EarleyKBestExtractor.Item> {
+
+    public static class Item {
+
+        private final int id;
+        private final int from;
+        private final int to;
+        private final int dotPlace;
+
+        /**
+         * Constructor for the Item class. An item is either a complete constituent, a non-terminal spanning the words
+         * from position from to position to - 1, or a dotted rule of the chart.
+         * @param id Id of the non-terminal for a constituent, id of the rule for a dotted rule.
+         * @param from Origin of the item.
+         * @param to End of the item.
+         * @param dotPlace Dot place of the dotted rule, -1 for a constituent.
+         */
+        public Item(int id, int from, int to, int dotPlace){
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.dotPlace = dotPlace;
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof Item)){
+                return false;
+            }
+            Item item = (Item) aThat;
+            return id == item.id && from == item.from && to == item.to && dotPlace == item.dotPlace;
+        }
+
+        public int hashCode(){
+            return ((id * 31 + from) * 31 + to) * 31 + dotPlace;
+        }
+    }
+
+    private final CompiledGrammar grammar;
+    private final Chart[] chart;
+    private final Sentence sentence;
+
+    /**
+     * Constructor for the EarleyKBestExtractor class. The nodes of the hypergraph are the constituents and the dotted
+     * rules of a filled Earley chart. A constituent is derived from a complete dotted rule of its non-terminal or from
+     * a scanned word, and a dotted rule with the dot after its d'th symbol is derived from the same rule with the dot
+     * after its (d - 1)'th symbol and a constituent of its d'th symbol. Every edge has at most two tails, so the rules
+     * of the grammar do not need to be binary.
+     * @param grammar Compiled grammar used in parsing.
+     * @param chart Filled Earley chart.
+     * @param sentence Sentence parsed.
+     */
+    public EarleyKBestExtractor(CompiledGrammar grammar, Chart[] chart, Sentence sentence){
+        this.grammar = grammar;
+        this.chart = chart;
+        this.sentence = sentence;
+    }
+
+    /**
+     * Returns the incoming edges of the given item. The weight of the edges deriving a constituent is the log
+     * probability of the rule, the edges deriving dotted rules have zero weight.
+     * @param node Item of the hypergraph.
+     * @return Incoming edges of the item.
+     */
+    protected ArrayList<Hyperedge<Item>> incomingEdges(Item node){
+        int rule, size;
+        ArrayList<Hyperedge<Item>> edges = new ArrayList<>();
+        if (node.dotPlace == -1){
+            if (node.to == node.from + 1){
+                rule = grammar.getLexicon().getRule(node.id, grammar.getSymbolId(sentence.getWord(node.from).getName()));
+                if (rule != -1 && chart[node.to].contains(grammar.getRule(rule), node.from, 1)){
+                    edges.add(new Hyperedge<>(rule, new ArrayList<>(), grammar.getRule(rule).getLogProbability()));
+                }
+            }
+            for (int candidate : grammar.getRulesWithLeftSideX(node.id)){
+                size = grammar.getRightHandSideSize(candidate);
+                if (grammar.getType(candidate) != RuleType.TERMINAL && chart[node.to].contains(grammar.getRule(candidate), node.from, size)){
+                    ArrayList<Item> tails = new ArrayList<>(1);
+                    tails.add(new Item(candidate, node.from, node.to, size));
+                    edges.add(new Hyperedge<>(candidate, tails, grammar.getRule(candidate).getLogProbability()));
+                }
+            }
+        } else {
+            if (node.dotPlace == 0){
+                edges.add(new Hyperedge<>(node.id, new ArrayList<>(), 0.0));
+                return edges;
+            }
+            for (int middle = node.from; middle < node.to; middle++){
+                if (chart[middle].contains(grammar.getRule(node.id), node.from, node.dotPlace - 1)){
+                    ArrayList<Item> tails = new ArrayList<>(2);
+                    tails.add(new Item(node.id, node.from, middle, node.dotPlace - 1));
+                    tails.add(new Item(grammar.getRightHandSideAt(node.id, node.dotPlace - 1), middle, node.to, -1));
+                    edges.add(new Hyperedge<>(node.id, tails, 0.0));
+                }
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,57 @@
+package ProbabilisticParser;
+
+import java.util.ArrayList;
+
+public class Hyperedge<N> {
+
+    private final int rule;
+    private final ArrayList<N> tails;
+    private final double weight;
+
+    /**
+     * Constructor for the Hyperedge class. A hyperedge derives its head node from its tail nodes, the log probability
+     * of a derivation using the edge is the weight of the edge plus the log probabilities of the derivations of the
+     * tails.
+     * @param rule Id of the rule used by the edge, -1 if the edge does not correspond to a rule.
+     * @param tails Tail nodes of the edge, at most two.
+     * @param weight Log probability added by the edge.
+     */
+    public Hyperedge(int rule, ArrayList<N> tails, double weight){
+        this.rule = rule;
+        this.tails = tails;
+        this.weight = weight;
+    }
+
+    /**
+     * Accessor for the rule attribute.
+     * @return Id of the rule used by the edge.
+     */
+    public int getRule(){
+        return rule;
+    }
+
+    /**
+     * Returns number of tail nodes of the edge.
+     * @return Number of tail nodes.
+     */
+    public int tailCount(){
+        return tails.size();
+    }
+
+    /**
+     * Returns the tail node at the given position.
+     * @param index Position of the tail node.
+     * @return Tail node at the given position.
+     */
+    public N getTail(int index){
+        return tails.get(index);
+    }
+
+    /**
+     * Accessor for the weight attribute.
+     * @return Log probability added by the edge.
+     */
+    public double getWeight(){
+        return weight;
+    }
+}
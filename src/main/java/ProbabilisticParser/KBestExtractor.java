@@ -0,0 +1,277 @@
+package ProbabilisticParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+public abstract class KBestExtractor<N> {
+
+    private static final class CandidateKey {
+
+        private final int edgeIndex;
+        private final int[] ranks;
+        private final int hash;
+
+        private CandidateKey(int edgeIndex, int[] ranks){
+            this.edgeIndex = edgeIndex;
+            this.ranks = ranks;
+            hash = edgeIndex * 31 + Arrays.hashCode(ranks);
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof CandidateKey)){
+                return false;
+            }
+            CandidateKey key = (CandidateKey) aThat;
+            return hash == key.hash && edgeIndex == key.edgeIndex && Arrays.equals(ranks, key.ranks);
+        }
+
+        public int hashCode(){
+            return hash;
+        }
+    }
+
+    private static final class StateKey<N> {
+
+        private final N node;
+        private final Set<N> ancestors;
+
+        private StateKey(N node, Set<N> ancestors){
+            this.node = node;
+            this.ancestors = ancestors;
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof StateKey)){
+                return false;
+            }
+            StateKey<?> key = (StateKey<?>) aThat;
+            return node.equals(key.node) && ancestors.equals(key.ancestors);
+        }
+
+        public int hashCode(){
+            return node.hashCode() * 31 + ancestors.hashCode();
+        }
+    }
+
+    private class NodeState {
+
+        private final N node;
+        private final Set<N> ancestors;
+        private final ArrayList<Derivation<N>> derivations = new ArrayList<>();
+        private final PriorityQueue<Derivation<N>> candidates = new PriorityQueue<>((first, second) -> {
+            if (first.getLogProbability() != second.getLogProbability()){
+                return Double.compare(second.getLogProbability(), first.getLogProbability());
+            }
+            return Long.compare(first.getOrder(), second.getOrder());
+        });
+        private final HashSet<CandidateKey> visited = new HashSet<>();
+        private Set<N> tailAncestors = null;
+        private Derivation<N> last = null;
+
+        private NodeState(N node, Set<N> ancestors){
+            this.node = node;
+            this.ancestors = ancestors;
+        }
+    }
+
+    private final HashMap<N, ArrayList<Hyperedge<N>>> edges = new HashMap<>();
+    private final HashMap<N, Integer> components = new HashMap<>();
+    private final HashMap<StateKey<N>, NodeState> states = new HashMap<>();
+    private int componentCount = 0;
+    private long order = 0;
+
+    /**
+     * Returns the incoming edges of the given node, that is all ways of deriving the node from other nodes. The method
+     * is called at most once for each node, only for the nodes reachable from the nodes whose derivations are
+     * requested.
+     * @param node Node of the hypergraph.
+     * @return Incoming edges of the node, each with at most two tails.
+     */
+    protected abstract ArrayList<Hyperedge<N>> incomingEdges(N node);
+
+    /**
+     * Creates an array of derivations. Generic arrays can not be created directly, and the array never leaves the
+     * derivation it is created for, so the unchecked cast is safe.
+     * @param length Length of the array.
+     * @return Array of derivations.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> Derivation<N>[] newDerivationArray(int length){
+        return (Derivation<N>[]) new Derivation<?>[length];
+    }
+
+    /**
+     * Reads the incoming edges of the given node and of all nodes reachable from it that are not read before, and
+     * assigns each of them to its strongly connected component with Tarjan's algorithm. The nodes of a component
+     * with more than one node derive each other through unary cycles over the same span.
+     * @param node Node of the hypergraph.
+     * @param indexes Visiting order of the nodes read in this traversal.
+     * @param lowLinks Smallest visiting order reachable from each node read in this traversal.
+     * @param stack Nodes of the components not completed yet.
+     * @param onStack Set of the nodes in the stack.
+     */
+    private void connect(N node, HashMap<N, Integer> indexes, HashMap<N, Integer> lowLinks, ArrayList<N> stack, HashSet<N> onStack){
+        N tail, member;
+        int index = indexes.size();
+        indexes.put(node, index);
+        lowLinks.put(node, index);
+        stack.add(node);
+        onStack.add(node);
+        ArrayList<Hyperedge<N>> nodeEdges = incomingEdges(node);
+        edges.put(node, nodeEdges);
+        for (Hyperedge<N> edge : nodeEdges){
+            for (int i = 0; i < edge.tailCount(); i++){
+                tail = edge.getTail(i);
+                if (!indexes.containsKey(tail) && !components.containsKey(tail)){
+                    connect(tail, indexes, lowLinks, stack, onStack);
+                    lowLinks.put(node, Math.min(lowLinks.get(node), lowLinks.get(tail)));
+                } else {
+                    if (onStack.contains(tail)){
+                        lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(tail)));
+                    }
+                }
+            }
+        }
+        if (lowLinks.get(node) == index){
+            do {
+                member = stack.remove(stack.size() - 1);
+                onStack.remove(member);
+                components.put(member, componentCount);
+            } while (!member.equals(node));
+            componentCount++;
+        }
+    }
+
+    /**
+     * Returns the ancestors with which the derivations of the given tail of the given node are extracted. Only the
+     * ancestors in the component of the tail can be reached again from the tail, so the ancestors of a tail in the
+     * same component as the node are the ancestors of the node and the node itself, and a tail in another component
+     * has no relevant ancestors.
+     * @param state State of the node.
+     * @param tail Tail of an incoming edge of the node.
+     * @return Ancestors of the tail.
+     */
+    private Set<N> tailAncestors(NodeState state, N tail){
+        if (!components.get(tail).equals(components.get(state.node))){
+            return Collections.emptySet();
+        }
+        if (state.tailAncestors == null){
+            state.tailAncestors = new HashSet<>(state.ancestors);
+            state.tailAncestors.add(state.node);
+        }
+        return state.tailAncestors;
+    }
+
+    /**
+     * Adds the candidate derivation using the given edge and the given ranks of the tails to the heap of the node,
+     * if the candidate is not added before, no tail is the node itself or one of its ancestors, and all tail
+     * derivations exist.
+     * @param state State of the node.
+     * @param edgeIndex Position of the edge among the incoming edges.
+     * @param ranks Ranks of the derivations of the tails.
+     */
+    private void addCandidate(NodeState state, int edgeIndex, int[] ranks){
+        N tail;
+        Hyperedge<N> edge = edges.get(state.node).get(edgeIndex);
+        if (!state.visited.add(new CandidateKey(edgeIndex, ranks))){
+            return;
+        }
+        Derivation<N>[] children = newDerivationArray(edge.tailCount());
+        for (int i = 0; i < edge.tailCount(); i++){
+            tail = edge.getTail(i);
+            if (tail.equals(state.node) || state.ancestors.contains(tail)){
+                return;
+            }
+            children[i] = getDerivation(tail, tailAncestors(state, tail), ranks[i]);
+            if (children[i] == null){
+                return;
+            }
+        }
+        state.candidates.add(new Derivation<>(state.node, edge, edgeIndex, ranks, children, order++));
+    }
+
+    /**
+     * Returns the rank'th best derivation of the given node that does not contain the given ancestors. Each node and
+     * set of ancestors has its own state, so the derivations of a node in a unary cycle are extracted separately for
+     * each way of entering the cycle. The ancestors of a tail either strictly contain the ancestors of the node or
+     * belong to a component below it, so the extraction never reaches a state being extended.
+     * @param node Node of the hypergraph.
+     * @param ancestors Ancestors of the node in its component.
+     * @param rank Rank of the derivation.
+     * @return The rank'th best derivation, null if the node has fewer derivations.
+     */
+    private Derivation<N> getDerivation(N node, Set<N> ancestors, int rank){
+        StateKey<N> key = new StateKey<>(node, ancestors);
+        NodeState state = states.get(key);
+        if (state == null){
+            state = new NodeState(node, ancestors);
+            states.put(key, state);
+            for (int i = 0; i < edges.get(node).size(); i++){
+                addCandidate(state, i, new int[edges.get(node).get(i).tailCount()]);
+            }
+        }
+        while (state.derivations.size() <= rank){
+            if (state.last != null){
+                for (int i = 0; i < state.last.getEdge().tailCount(); i++){
+                    int[] ranks = new int[state.last.getEdge().tailCount()];
+                    for (int j = 0; j < ranks.length; j++){
+                        ranks[j] = state.last.getRank(j);
+                    }
+                    ranks[i]++;
+                    addCandidate(state, state.last.getEdgeIndex(), ranks);
+                }
+            }
+            state.last = state.candidates.poll();
+            if (state.last == null){
+                break;
+            }
+            state.derivations.add(state.last);
+        }
+        if (rank < state.derivations.size()){
+            return state.derivations.get(rank);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the rank'th best derivation of the given node, the best derivation has rank 0. Derivations are
+     * extracted lazily as in the algorithm 3 of Huang and Chiang (2005): the heap of a node initially contains the
+     * best derivation of each incoming edge, and after a derivation is popped only its neighbours, which use the next
+     * derivation of a single tail, are added. Only the derivations in which no node is derived from itself are
+     * extracted; a unary cycle never makes a derivation more probable, and the result does not depend on the order
+     * of the requests.
+     * @param node Node of the hypergraph.
+     * @param rank Rank of the derivation.
+     * @return The rank'th best derivation, null if the node has fewer derivations.
+     */
+    public Derivation<N> getDerivation(N node, int rank){
+        if (!components.containsKey(node)){
+            connect(node, new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashSet<>());
+        }
+        return getDerivation(node, Collections.emptySet(), rank);
+    }
+
+    /**
+     * Returns at most k best derivations of the given node in decreasing order of probability.
+     * @param node Root node.
+     * @param k Maximum number of derivations.
+     * @return At most k best derivations of the node.
+     */
+    public ArrayList<Derivation<N>> getKBest(N node, int k){
+        ArrayList<Derivation<N>> result = new ArrayList<>();
+        Derivation<N> derivation;
+        for (int rank = 0; rank < k; rank++){
+            derivation = getDerivation(node, rank);
+            if (derivation == null){
+                break;
+            }
+            result.add(derivation);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+package ProbabilisticParser;
+
+import ContextFreeGrammar.CompiledGrammar;
+import ContextFreeGrammar.Lexicon;
+import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class OutsideEstimate {
+
+    private final CompiledGrammar grammar;
+    private final int maximumLength;
+    private final double[][][] outside;
+
+    /**
+     * Constructor for the OutsideEstimate class. Precomputes the context summary estimate of the outside log
+     * probabilities of the non-terminals of the given grammar. The estimate of a non-terminal with l words on its left
+     * and r words on its right is the log probability of the most probable derivation of S over l + r words and the
+     * non-terminal at position l, where the words of the context are not fixed. Since every sentence with that context
+     * is one of those derivations, the estimate is never less than the real outside log probability, and the best
+     * first parser guided by it still finds the most probable parse. Both the estimate of the inside log probabilities
+     * of the context and the outside estimate are computed with dynamic programming over the lengths, so the cost is
+     * proportional to the cube of the maximum length times the number of binary rules, paid once per grammar.
+     * @param pCfg Probabilistic context free grammar in Chomsky Normal Form.
+     * @param maximumLength Maximum length of the sentences for which the estimate is computed.
+     */
+    public OutsideEstimate(ProbabilisticContextFreeGrammar pCfg, int maximumLength){
+        int length, left, right, k, A, B, C;
+        double logProbability;
+        double[][] inside;
+        int[] tags;
+        double[] logProbabilities;
+        ArrayList<Integer> binaryRules = new ArrayList<>();
+        grammar = pCfg.compile();
+        this.maximumLength = maximumLength;
+        Lexicon lexicon = grammar.getLexicon();
+        for (int rule = 0; rule < grammar.getRuleCount(); rule++){
+            if (grammar.getRightHandSideSize(rule) == 2){
+                binaryRules.add(rule);
+            }
+        }
+        inside = new double[maximumLength + 1][grammar.getNonTerminalCount()];
+        for (double[] row : inside){
+            Arrays.fill(row, Double.NEGATIVE_INFINITY);
+        }
+        for (int word = 0; word < grammar.getSymbolCount(); word++){
+            tags = lexicon.getTags(word);
+            logProbabilities = lexicon.getLogProbabilities(word);
+            for (int i = 0; i < tags.length; i++){
+                inside[1][tags[i]] = Math.max(inside[1][tags[i]], logProbabilities[i]);
+            }
+        }
+        for (length = 2; length < maximumLength; length++){
+            for (int rule : binaryRules){
+                A = grammar.getLeftHandSide(rule);
+                B = grammar.getRightHandSideAt(rule, 0);
+                C = grammar.getRightHandSideAt(rule, 1);
+                for (k = 1; k < length; k++){
+                    logProbability = grammar.getRule(rule).getLogProbability() + inside[k][B] + inside[length - k][C];
+                    if (logProbability > inside[length][A]){
+                        inside[length][A] = logProbability;
+                    }
+                }
+            }
+        }
+        outside = new double[maximumLength][maximumLength][];
+        for (int context = 0; context < maximumLength; context++){
+            for (left = 0; left <= context; left++){
+                right = context - left;
+                outside[left][right] = new double[grammar.getNonTerminalCount()];
+                Arrays.fill(outside[left][right], Double.NEGATIVE_INFINITY);
+                if (context == 0){
+                    if (grammar.getSymbolId("S") >= 0 && grammar.getSymbolId("S") < grammar.getNonTerminalCount()){
+                        outside[0][0][grammar.getSymbolId("S")] = 0.0;
+                    }
+                    continue;
+                }
+                for (int rule : binaryRules){
+                    A = grammar.getLeftHandSide(rule);
+                    B = grammar.getRightHandSideAt(rule, 0);
+                    C = grammar.getRightHandSideAt(rule, 1);
+                    for (k = 1; k <= right; k++){
+                        logProbability = outside[left][right - k][A] + grammar.getRule(rule).getLogProbability() + inside[k][C];
+                        if (logProbability > outside[left][right][B]){
+                            outside[left][right][B] = logProbability;
+                        }
+                    }
+                    for (k = 1; k <= left; k++){
+                        logProbability = outside[left - k][right][A] + grammar.getRule(rule).getLogProbability() + inside[k][B];
+                        if (logProbability > outside[left][right][C]){
+                            outside[left][right][C] = logProbability;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Accessor for the grammar attribute.
+     * @return Compiled grammar for which the estimate is computed.
+     */
+    public CompiledGrammar getGrammar(){
+        return grammar;
+    }
+
+    /**
+     * Accessor for the maximumLength attribute.
+     * @return Maximum length of the sentences for which the estimate is computed.
+     */
+    public int getMaximumLength(){
+        return maximumLength;
+    }
+
+    /**
+     * Returns the estimate of the outside log probability of the given non-terminal with the given number of words on
+     * its left and on its right.
+     * @param symbolId Id of the non-terminal.
+     * @param left Number of words on the left of the non-terminal.
+     * @param right Number of words on the right of the non-terminal.
+     * @return Upper bound of the outside log probability, Double.NEGATIVE_INFINITY if the non-terminal can not appear
+     * in that context.
+     */
+    public double getLogProbability(int symbolId, int left, int right){
+        return outside[left][right][symbolId];
+    }
+}
@@ -0,0 +1,252 @@
+package ProbabilisticParser;
+
+import ContextFreeGrammar.*;
+import Corpus.Sentence;
+import ParseTree.*;
+import ProbabilisticContextFreeGrammar.*;
+import SyntacticParser.ParserListener;
+import SyntacticParser.ParserPhase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+public class ProbabilisticBestFirstParser implements ProbabilisticParser {
+
+    private static final class Edge {
+
+        private final int symbolId;
+        private final int start;
+        private final int end;
+        private final double logProbability;
+        private final double priority;
+        private final Edge left;
+        private final Edge right;
+
+        private Edge(int symbolId, int start, int end, double logProbability, double priority, Edge left, Edge right){
+            this.symbolId = symbolId;
+            this.start = start;
+            this.end = end;
+            this.logProbability = logProbability;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static final class Agenda {
+
+        private final OutsideEstimate outsideEstimate;
+        private final int wordCount;
+        private final PriorityQueue<Edge> edges = new PriorityQueue<>((first, second) -> Double.compare(second.priority, first.priority));
+        private final HashMap<Long, Edge> discovered = new HashMap<>();
+        private final HashSet<Long> finished = new HashSet<>();
+        private int pushed = 0;
+        private int popped = 0;
+
+        private Agenda(OutsideEstimate outsideEstimate, int wordCount){
+            this.outsideEstimate = outsideEstimate;
+            this.wordCount = wordCount;
+        }
+
+        private long key(int symbolId, int start, int end){
+            return ((long) symbolId * wordCount + start) * wordCount + end;
+        }
+
+        /**
+         * Pushes the edge of the given non-terminal spanning the words from position start to position end, unless the
+         * edge is already finished, an edge at least as probable is already on the agenda, or the outside estimate
+         * shows that the non-terminal can not appear in the context of the span.
+         * @param symbolId Id of the non-terminal.
+         * @param start Position of the first word.
+         * @param end Position of the last word.
+         * @param logProbability Inside log probability of the edge.
+         * @param left Left child of the edge, null for a part of speech tag.
+         * @param right Right child of the edge, null for a part of speech tag.
+         */
+        private void push(int symbolId, int start, int end, double logProbability, Edge left, Edge right){
+            double priority = logProbability;
+            long key = key(symbolId, start, end);
+            if (outsideEstimate != null){
+                priority += outsideEstimate.getLogProbability(symbolId, start, wordCount - 1 - end);
+            }
+            if (priority <= -Double.MAX_VALUE || finished.contains(key)){
+                return;
+            }
+            Edge best = discovered.get(key);
+            if (best != null && best.logProbability >= logProbability){
+                return;
+            }
+            Edge edge = new Edge(symbolId, start, end, logProbability, priority, left, right);
+            discovered.put(key, edge);
+            edges.add(edge);
+            pushed++;
+        }
+
+        /**
+         * Pops the edge with the highest priority, skipping the edges superseded by a more probable edge of the same
+         * non-terminal and span, and marks it as finished.
+         * @return Most promising unfinished edge, null if the agenda is empty.
+         */
+        private Edge pop(){
+            Edge edge;
+            while (!edges.isEmpty()){
+                edge = edges.poll();
+                if (finished.add(key(edge.symbolId, edge.start, edge.end))){
+                    popped++;
+                    return edge;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final OutsideEstimate outsideEstimate;
+    private ParserListener listener = ParserListener.NO_OP;
+
+    /**
+     * Constructor for the ProbabilisticBestFirstParser class. The edges are popped from the agenda in decreasing order
+     * of their inside log probabilities, that is the parser is a uniform cost search.
+     */
+    public ProbabilisticBestFirstParser(){
+        this(null);
+    }
+
+    /**
+     * Another constructor for the ProbabilisticBestFirstParser class. The edges are popped from the agenda in
+     * decreasing order of their inside log probabilities plus the estimates of their outside log probabilities, that
+     * is the parser is an A* search. Sentences longer than the maximum length of the estimate are parsed as with the
+     * uniform cost search.
+     * @param outsideEstimate Outside estimate computed from the grammar used in parsing, null for no estimate.
+     */
+    public ProbabilisticBestFirstParser(OutsideEstimate outsideEstimate){
+        this.outsideEstimate = outsideEstimate;
+    }
+
+    /**
+     * Sets the listener notified of the phases, the agenda sizes and the sentences parsed by this parser.
+     * @param listener Parser listener, {@link ParserListener#NO_OP} to disable instrumentation.
+     */
+    public void setListener(ParserListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Accessor for the listener attribute.
+     * @return Parser listener of this parser.
+     */
+    public ParserListener getListener(){
+        return listener;
+    }
+
+    /**
+     * Combines the given finished edge with the finished edges adjacent to it and pushes the resulting edges to the
+     * agenda. Since the edges are finished in decreasing order of priority, every pair of adjacent finished edges is
+     * combined exactly once, when the later one is finished.
+     * @param grammar Compiled grammar used in parsing.
+     * @param agenda Agenda of the sentence.
+     * @param startingAt Finished edges by their first positions.
+     * @param endingAt Finished edges by their last positions.
+     * @param edge Finished edge.
+     */
+    private void combine(CompiledGrammar grammar, Agenda agenda, ArrayList<ArrayList<Edge>> startingAt, ArrayList<ArrayList<Edge>> endingAt, Edge edge){
+        if (edge.end + 1 < agenda.wordCount){
+            for (Edge right : startingAt.get(edge.end + 1)){
+                for (int candidate : grammar.getRulesWithTwoNonTerminalsOnRightSide(edge.symbolId, right.symbolId)){
+                    agenda.push(grammar.getLeftHandSide(candidate), edge.start, right.end, grammar.getRule(candidate).getLogProbability() + edge.logProbability + right.logProbability, edge, right);
+                }
+            }
+        }
+        if (edge.start > 0){
+            for (Edge left : endingAt.get(edge.start - 1)){
+                for (int candidate : grammar.getRulesWithTwoNonTerminalsOnRightSide(left.symbolId, edge.symbolId)){
+                    agenda.push(grammar.getLeftHandSide(candidate), left.start, edge.end, grammar.getRule(candidate).getLogProbability() + left.logProbability + edge.logProbability, left, edge);
+                }
+            }
+        }
+        startingAt.get(edge.start).add(edge);
+        endingAt.get(edge.end).add(edge);
+    }
+
+    /**
+     * Constructs the subtree of the given edge by following its back-pointers.
+     * @param grammar Compiled grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @param edge Finished edge.
+     * @return Root of the subtree.
+     */
+    private ProbabilisticParseNode constructParseNode(CompiledGrammar grammar, Sentence sentence, Edge edge){
+        if (edge.left == null){
+            return new ProbabilisticParseNode(new ParseNode(new Symbol(sentence.getWord(edge.start).getName())), grammar.getSymbol(edge.symbolId), edge.logProbability);
+        }
+        return new ProbabilisticParseNode(constructParseNode(grammar, sentence, edge.left), constructParseNode(grammar, sentence, edge.right), grammar.getSymbol(edge.symbolId), edge.logProbability);
+    }
+
+    /**
+     * Constructs the most probable parse tree of the given sentence with a best first search over the edges of the
+     * CYK table. The part of speech tags of the words are pushed to an agenda; the most promising edge is repeatedly
+     * popped, finished, and combined with the finished edges adjacent to it. Since log probabilities never increase
+     * when edges are combined and the outside estimate never underestimates, an edge is popped only after its most
+     * probable derivation is found, so the search stops as soon as the S edge spanning the whole sentence is popped,
+     * and the tree is as probable as the one found by {@link ProbabilisticCYKParser}; it is the same tree unless several
+     * trees share the highest probability. Typically only a part of the table is explored.
+     * @param pCfg Probabilistic context free grammar in Chomsky Normal Form used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Array list containing the most probable parse tree for the given sentence, empty if the sentence can not
+     * be parsed.
+     */
+    public ArrayList<ParseTree> parse(ProbabilisticContextFreeGrammar pCfg, Sentence sentence) {
+        int start, word;
+        int[] tags;
+        double[] logProbabilities;
+        Agenda agenda;
+        Edge edge, goal = null;
+        long parseStart = System.nanoTime(), phaseStart;
+        CompiledGrammar grammar = pCfg.compile();
+        Lexicon lexicon = grammar.getLexicon();
+        ArrayList<ParseTree> parseTrees = new ArrayList<>();
+        ArrayList<ArrayList<Edge>> startingAt = new ArrayList<>(), endingAt = new ArrayList<>();
+        Sentence backUp = sentence;
+        listener.parseStarted(backUp);
+        sentence = pCfg.normalizeSentence(backUp);
+        if (outsideEstimate != null && outsideEstimate.getGrammar() == grammar && sentence.wordCount() <= outsideEstimate.getMaximumLength()){
+            agenda = new Agenda(outsideEstimate, sentence.wordCount());
+        } else {
+            agenda = new Agenda(null, sentence.wordCount());
+        }
+        for (int i = 0; i < sentence.wordCount(); i++){
+            startingAt.add(new ArrayList<>());
+            endingAt.add(new ArrayList<>());
+            word = grammar.getSymbolId(sentence.getWord(i).getName());
+            tags = lexicon.getTags(word);
+            logProbabilities = lexicon.getLogProbabilities(word);
+            for (int j = 0; j < tags.length; j++){
+                agenda.push(tags[j], i, i, logProbabilities[j], null, null);
+            }
+        }
+        listener.phaseCompleted(ParserPhase.LEXICAL, System.nanoTime() - parseStart);
+        phaseStart = System.nanoTime();
+        start = grammar.getSymbolId("S");
+        while ((edge = agenda.pop()) != null){
+            if (edge.symbolId == start && edge.start == 0 && edge.end == sentence.wordCount() - 1){
+                goal = edge;
+                break;
+            }
+            combine(grammar, agenda, startingAt, endingAt, edge);
+        }
+        listener.agendaCompleted(agenda.pushed, agenda.popped);
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - phaseStart);
+        phaseStart = System.nanoTime();
+        if (goal != null){
+            ParseTree parseTree = new ParseTree(constructParseNode(grammar, sentence, goal));
+            parseTree.correctParents();
+            parseTree.removeXNodes();
+            pCfg.reinsertExceptionalWordsFromSentence(parseTree, backUp);
+            parseTrees.add(parseTree);
+        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - phaseStart);
+        listener.parseCompleted(backUp, parseTrees.size(), System.nanoTime() - parseStart);
+        return parseTrees;
+    }
+}
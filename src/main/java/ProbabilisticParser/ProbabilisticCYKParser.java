@@ -2,75 +2,271 @@ package ProbabilisticParser;
 
 import ContextFreeGrammar.*;
 import Corpus.Sentence;
-import Dictionary.Word;
 import ParseTree.*;
 import ProbabilisticContextFreeGrammar.*;
-import SyntacticParser.PartialParseList;
+import SyntacticParser.DiagonalScheduler;
+import SyntacticParser.ParserListener;
+import SyntacticParser.ParserPhase;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class ProbabilisticCYKParser implements ProbabilisticParser {
 
+    private final ForkJoinPool pool;
+    private final int beamSize;
+    private final double beamWidth;
+    private ParserListener listener = ParserListener.NO_OP;
+
     /**
-     * Constructs an array of most probable parse trees for a given sentence according to the given grammar. CYK parser
-     * is based on a dynamic programming algorithm.
-     * @param pCfg Probabilistic context free grammar used in parsing.
+     * Constructor for the ProbabilisticCYKParser class. The cells of the table are filled sequentially.
+     */
+    public ProbabilisticCYKParser(){
+        this(null);
+    }
+
+    /**
+     * Another constructor for the ProbabilisticCYKParser class. The cells of the table spanning the same number of
+     * words are filled concurrently in the given pool. The parse trees are identical to the ones found by the
+     * sequential parser.
+     * @param pool Fork join pool in which the cells are filled, null for sequential filling.
+     */
+    public ProbabilisticCYKParser(ForkJoinPool pool){
+        this(pool, Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Another constructor for the ProbabilisticCYKParser class with beam pruning. After a cell is filled, only its
+     * beamSize most probable partial parses are kept, and partial parses less probable than the best partial parse of
+     * the cell by more than beamWidth in log space are removed. The cell spanning the whole sentence is never pruned.
+     * Pruning bounds the work per cell at the cost of possibly missing the most probable parse. The numbers of kept and
+     * removed partial parses of each pruned cell are reported with {@link ParserListener#cellPruned(int, int, int, int)}.
+     * @param pool Fork join pool in which the cells are filled, null for sequential filling.
+     * @param beamSize Maximum number of partial parses kept in a cell, Integer.MAX_VALUE for no limit.
+     * @param beamWidth Maximum log probability difference to the best partial parse of a cell,
+     *                  Double.POSITIVE_INFINITY for no limit.
+     */
+    public ProbabilisticCYKParser(ForkJoinPool pool, int beamSize, double beamWidth){
+        this.pool = pool;
+        this.beamSize = beamSize;
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Sets the listener notified of the cells, the phases and the sentences parsed by this parser. When the cells
+     * are filled in a fork join pool, the listener should be thread safe.
+     * @param listener Parser listener, {@link ParserListener#NO_OP} to disable instrumentation.
+     */
+    public void setListener(ParserListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Accessor for the listener attribute.
+     * @return Parser listener of this parser.
+     */
+    public ParserListener getListener(){
+        return listener;
+    }
+
+    /**
+     * Prunes the given cell if a beam is set and the cell does not span the whole sentence, and reports the numbers of
+     * kept and removed partial parses to the listener.
+     * @param cell Cell to be pruned.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param spansSentence True, if the cell spans the whole sentence.
+     */
+    private void pruneCell(ViterbiCell cell, int i, int j, boolean spansSentence){
+        if (!spansSentence && (beamSize != Integer.MAX_VALUE || beamWidth != Double.POSITIVE_INFINITY)){
+            int pruned = cell.prune(beamSize, beamWidth);
+            listener.cellPruned(i, j, cell.size(), pruned);
+        }
+    }
+
+    /**
+     * Fills the cell spanning the words from position i to position j with the most probable derivations obtained by
+     * combining the non-terminals of the cells (i, k) and (k + 1, j). Each candidate derivation is a single compare
+     * and set in the arrays of the cell.
+     * @param grammar Compiled grammar used in parsing.
+     * @param table Table of Viterbi cells.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     */
+    private void fillCell(CompiledGrammar grammar, ViterbiCell[][] table, int i, int j){
+        int k, x, y, lookups = 0;
+        int[] leftIds, rightIds, candidates;
+        double leftProbability, probability;
+        ViterbiCell cell = table[i][j];
+        for (k = i; k < j; k++){
+            leftIds = table[i][k].getSymbolIds();
+            rightIds = table[k + 1][j].getSymbolIds();
+            for (x = 0; x < leftIds.length; x++){
+                leftProbability = table[i][k].getLogProbability(leftIds[x]);
+                for (y = 0; y < rightIds.length; y++){
+                    candidates = grammar.getRulesWithTwoNonTerminalsOnRightSide(leftIds[x], rightIds[y]);
+                    lookups++;
+                    for (int candidate: candidates){
+                        probability = grammar.getRule(candidate).getLogProbability() + leftProbability + table[k + 1][j].getLogProbability(rightIds[y]);
+                        cell.update(grammar.getLeftHandSide(candidate), probability, candidate, k);
+                    }
+                }
+            }
+        }
+        pruneCell(cell, i, j, i == 0 && j == table.length - 1);
+        listener.cellCompleted(i, j, cell.size(), lookups);
+    }
+
+    /**
+     * Constructs the most probable subtree of the given non-terminal spanning the words from position i to position j
+     * by following the back-pointers of the Viterbi cells.
+     * @param grammar Compiled grammar used in parsing.
+     * @param table Table of Viterbi cells.
      * @param sentence Sentence to be parsed.
-     * @return Array list of most probable parse trees for the given sentence.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param symbolId Id of the non-terminal at the root of the subtree.
+     * @return Root of the most probable subtree.
      */
-    public ArrayList<ParseTree> parse(ProbabilisticContextFreeGrammar pCfg, Sentence sentence) {
-        int i, j, k, x, y;
-        PartialParseList[][] table;
-        ProbabilisticParseNode leftNode, rightNode;
-        double bestProbability, probability;
-        ArrayList<Rule> candidates;
-        ArrayList<ParseTree> parseTrees = new ArrayList<>();
-        Sentence backUp = new Sentence();
-        for (i = 0; i < sentence.wordCount(); i++){
-            backUp.addWord(new Word(sentence.getWord(i).getName()));
+    private ProbabilisticParseNode constructParseNode(CompiledGrammar grammar, ViterbiCell[][] table, Sentence sentence, int i, int j, int symbolId){
+        ViterbiCell cell = table[i][j];
+        int rule = cell.getRule(symbolId);
+        int split = cell.getSplit(symbolId);
+        if (split == -1){
+            return new ProbabilisticParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), grammar.getSymbol(symbolId), cell.getLogProbability(symbolId));
         }
-        pCfg.updateExceptionalWordsInSentence(sentence);
-        table = new PartialParseList[sentence.wordCount()][sentence.wordCount()];
+        ProbabilisticParseNode left = constructParseNode(grammar, table, sentence, i, split, grammar.getRightHandSideAt(rule, 0));
+        ProbabilisticParseNode right = constructParseNode(grammar, table, sentence, split + 1, j, grammar.getRightHandSideAt(rule, 1));
+        return new ProbabilisticParseNode(left, right, grammar.getSymbol(symbolId), cell.getLogProbability(symbolId));
+    }
+
+    /**
+     * Fills the table of Viterbi cells for the given sentence. The words of the sentence should already be normalized
+     * with {@link ContextFreeGrammar#normalizeSentence(Sentence)}.
+     * @param grammar Compiled grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Table of Viterbi cells, the cell (i, j) contains the non-terminals spanning the words from position i
+     * to position j.
+     */
+    private ViterbiCell[][] constructTable(CompiledGrammar grammar, Sentence sentence){
+        int i, j, word;
+        ViterbiCell[][] table;
+        int[] tags, rules;
+        double[] logProbabilities;
+        Lexicon lexicon = grammar.getLexicon();
+        long start = System.nanoTime();
+        table = new ViterbiCell[sentence.wordCount()][sentence.wordCount()];
         for (i = 0; i < sentence.wordCount(); i++)
             for (j = i; j < sentence.wordCount(); j++)
-                table[i][j] = new PartialParseList();
+                table[i][j] = new ViterbiCell(grammar.getNonTerminalCount());
         for (i = 0; i < sentence.wordCount(); i++){
-            candidates = pCfg.getTerminalRulesWithRightSideX(new Symbol(sentence.getWord(i).getName()));
-            for (Rule candidate: candidates){
-                table[i][i].addPartialParse(new ProbabilisticParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), candidate.getLeftHandSide(), Math.log(((ProbabilisticRule) candidate).getProbability())));
+            word = grammar.getSymbolId(sentence.getWord(i).getName());
+            tags = lexicon.getTags(word);
+            rules = lexicon.getRules(word);
+            logProbabilities = lexicon.getLogProbabilities(word);
+            for (j = 0; j < tags.length; j++){
+                table[i][i].update(tags[j], logProbabilities[j], rules[j], -1);
             }
+            pruneCell(table[i][i], i, i, sentence.wordCount() == 1);
+            listener.cellCompleted(i, i, table[i][i].size(), 1);
         }
-        for (j = 1; j < sentence.wordCount(); j++){
-            for (i = j - 1; i >= 0; i--){
-                for (k = i; k < j; k++)
-                    for (x = 0; x < table[i][k].size(); x++)
-                        for (y = 0; y < table[k + 1][j].size(); y++){
-                            leftNode = (ProbabilisticParseNode) table[i][k].getPartialParse(x);
-                            rightNode = (ProbabilisticParseNode) table[k + 1][j].getPartialParse(y);
-                            candidates = pCfg.getRulesWithTwoNonTerminalsOnRightSide(leftNode.getData(), rightNode.getData());
-                            for (Rule candidate: candidates){
-                                probability = Math.log(((ProbabilisticRule) candidate).getProbability()) + leftNode.getLogProbability() + rightNode.getLogProbability();
-                                table[i][j].updatePartialParse(new ProbabilisticParseNode(leftNode, rightNode, candidate.getLeftHandSide(), probability));
-                            }
-                        }
-            }
+        listener.phaseCompleted(ParserPhase.LEXICAL, System.nanoTime() - start);
+        start = System.nanoTime();
+        DiagonalScheduler.fill(sentence.wordCount(), pool, (first, last) -> fillCell(grammar, table, first, last));
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - start);
+        return table;
+    }
+
+    /**
+     * Constructs an array of most probable parse trees for a given sentence according to the given grammar. CYK parser
+     * is based on a dynamic programming algorithm. The cells of the table only store the best log probability and the
+     * back-pointer of each non-terminal, the parse nodes are constructed only for the most probable tree.
+     * @param pCfg Probabilistic context free grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Array list of most probable parse trees for the given sentence.
+     */
+    public ArrayList<ParseTree> parse(ProbabilisticContextFreeGrammar pCfg, Sentence sentence) {
+        int start;
+        long parseStart = System.nanoTime(), treeStart;
+        ViterbiCell[][] table;
+        CompiledGrammar grammar = pCfg.compile();
+        ArrayList<ParseTree> parseTrees = new ArrayList<>();
+        Sentence backUp = sentence;
+        listener.parseStarted(backUp);
+        sentence = pCfg.normalizeSentence(backUp);
+        table = constructTable(grammar, sentence);
+        treeStart = System.nanoTime();
+        start = grammar.getSymbolId("S");
+        if (table[0][sentence.wordCount() - 1].contains(start) && table[0][sentence.wordCount() - 1].getLogProbability(start) > -Double.MAX_VALUE){
+            ParseTree parseTree = new ParseTree(constructParseNode(grammar, table, sentence, 0, sentence.wordCount() - 1, start));
+            parseTree.correctParents();
+            parseTree.removeXNodes();
+            parseTrees.add(parseTree);
         }
-        bestProbability = -Double.MAX_VALUE;
-        for (i = 0; i < table[0][sentence.wordCount() - 1].size(); i++){
-            if (table[0][sentence.wordCount() - 1].getPartialParse(i).getData().getName().equals("S") && ((ProbabilisticParseNode) table[0][sentence.wordCount() - 1].getPartialParse(i)).getLogProbability() > bestProbability) {
-                bestProbability = ((ProbabilisticParseNode) table[0][sentence.wordCount() - 1].getPartialParse(i)).getLogProbability();
-            }
+        for (ParseTree parseTree : parseTrees){
+            pCfg.reinsertExceptionalWordsFromSentence(parseTree, backUp);
+        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(backUp, parseTrees.size(), System.nanoTime() - parseStart);
+        return parseTrees;
+    }
+
+    /**
+     * Constructs the subtree of the given derivation of a non-terminal spanning the words from position i to
+     * position j.
+     * @param grammar Compiled grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @param derivation Derivation of the non-terminal.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @return Root of the subtree.
+     */
+    private ProbabilisticParseNode constructParseNode(CompiledGrammar grammar, Sentence sentence, Derivation<Long> derivation, int i, int j){
+        int rule = derivation.getEdge().getRule();
+        Symbol symbol = grammar.getSymbol(grammar.getLeftHandSide(rule));
+        if (derivation.getEdge().tailCount() == 0){
+            return new ProbabilisticParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), symbol, derivation.getLogProbability());
         }
-        for (i = 0; i < table[0][sentence.wordCount() - 1].size(); i++){
-            if (table[0][sentence.wordCount() - 1].getPartialParse(i).getData().getName().equals("S") && ((ProbabilisticParseNode) table[0][sentence.wordCount() - 1].getPartialParse(i)).getLogProbability() == bestProbability) {
-                ParseTree parseTree = new ParseTree(table[0][sentence.wordCount() - 1].getPartialParse(i));
+        int split = ViterbiKBestExtractor.lastPosition(derivation.getEdge().getTail(0), sentence.wordCount());
+        ProbabilisticParseNode left = constructParseNode(grammar, sentence, derivation.getChild(0), i, split);
+        ProbabilisticParseNode right = constructParseNode(grammar, sentence, derivation.getChild(1), split + 1, j);
+        return new ProbabilisticParseNode(left, right, symbol, derivation.getLogProbability());
+    }
+
+    /**
+     * Constructs the k most probable parse trees of the given sentence in decreasing order of probability. The table
+     * is filled once as in {@link #parse(ProbabilisticContextFreeGrammar, Sentence)}, then the derivations are
+     * extracted lazily from the table with {@link KBestExtractor}, so the extra cost is proportional to k times the
+     * size of a tree instead of the number of all parses. With beam pruning, only the derivations surviving the beam
+     * are found.
+     * @param pCfg Probabilistic context free grammar in Chomsky Normal Form used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @param k Maximum number of parse trees.
+     * @return Array list of at most k most probable parse trees, the first tree is the most probable one.
+     */
+    public ArrayList<ParseTree> parseKBest(ProbabilisticContextFreeGrammar pCfg, Sentence sentence, int k){
+        int start;
+        long parseStart = System.nanoTime(), treeStart;
+        ViterbiCell[][] table;
+        CompiledGrammar grammar = pCfg.compile();
+        ArrayList<ParseTree> parseTrees = new ArrayList<>();
+        Sentence backUp = sentence;
+        listener.parseStarted(backUp);
+        sentence = pCfg.normalizeSentence(backUp);
+        table = constructTable(grammar, sentence);
+        treeStart = System.nanoTime();
+        start = grammar.getSymbolId("S");
+        if (start >= 0 && start < grammar.getNonTerminalCount()){
+            ViterbiKBestExtractor extractor = new ViterbiKBestExtractor(grammar, table);
+            for (Derivation<Long> derivation : extractor.getKBest(ViterbiKBestExtractor.node(start, 0, sentence.wordCount() - 1, sentence.wordCount()), k)){
+                ParseTree parseTree = new ParseTree(constructParseNode(grammar, sentence, derivation, 0, sentence.wordCount() - 1));
                 parseTree.correctParents();
                 parseTree.removeXNodes();
+                pCfg.reinsertExceptionalWordsFromSentence(parseTree, backUp);
                 parseTrees.add(parseTree);
             }
         }
-        for (ParseTree parseTree : parseTrees){
-            pCfg.reinsertExceptionalWordsFromSentence(parseTree, backUp);
-        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(backUp, parseTrees.size(), System.nanoTime() - parseStart);
         return parseTrees;
     }
 }
@@ -1,68 +1,87 @@
 package ProbabilisticParser;
 
+import ContextFreeGrammar.CompiledGrammar;
 import ContextFreeGrammar.Rule;
-import ParseTree.Symbol;
+import ParseTree.ParseNode;
 import Corpus.Sentence;
 import Dictionary.Word;
 import ProbabilisticContextFreeGrammar.*;
 import ParseTree.ParseTree;
 import SyntacticParser.Chart;
 import SyntacticParser.ChartEntry;
+import SyntacticParser.CompletionSet;
+import SyntacticParser.ParserListener;
+import SyntacticParser.ParserPhase;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
 
 public class ProbabilisticEarleyParser implements ProbabilisticParser {
 
-    private ArrayList[] predictedList;
-    private Map<String, Integer> completedList;
+    private ParserListener listener = ParserListener.NO_OP;
 
-    private void predictor(ProbabilisticContextFreeGrammar pcfg, Chart[] chart, ChartEntry chartEntry){
-        Symbol B;
-        ArrayList<Rule> candidates;
-        B = chartEntry.getNextCategory();
-        if (!predictedList[chartEntry.to()].contains(B)){
-            candidates = pcfg.getRulesWithLeftSideX(B);
-            for (Rule candidate: candidates){
-                if (candidate.getRightHandSideSize() + chartEntry.to() < chart.length){
-                    chart[chartEntry.to()].addChartEntry(new ChartEntry((ProbabilisticRule)candidate, chartEntry.to(), chartEntry.to(), 0));
+    /**
+     * Sets the listener notified of the chart columns, the phases and the sentences parsed by this parser.
+     * @param listener Parser listener, {@link ParserListener#NO_OP} to disable instrumentation.
+     */
+    public void setListener(ParserListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Accessor for the listener attribute.
+     * @return Parser listener of this parser.
+     */
+    public ParserListener getListener(){
+        return listener;
+    }
+
+    private int predictor(CompiledGrammar grammar, Chart[] chart, BitSet[] predicted, ChartEntry chartEntry){
+        int B;
+        int[] candidates;
+        B = grammar.getSymbolId(chartEntry.getNextCategory());
+        if (B >= 0 && !predicted[chartEntry.to()].get(B)){
+            candidates = grammar.getPredictionClosure(B);
+            for (int candidate: candidates){
+                if (!predicted[chartEntry.to()].get(grammar.getLeftHandSide(candidate)) && grammar.getRightHandSideSize(candidate) + chartEntry.to() < chart.length){
+                    chart[chartEntry.to()].addChartEntry(new ChartEntry((ProbabilisticRule)grammar.getRule(candidate), chartEntry.to(), chartEntry.to(), 0));
                 }
             }
-            predictedList[chartEntry.to()].add(B);
+            for (int symbol: grammar.getPredictedSymbols(B)){
+                predicted[chartEntry.to()].set(symbol);
+            }
+            predicted[chartEntry.to()].set(B);
+            return candidates.length;
         }
+        return 0;
     }
 
-    private void scanner(ProbabilisticContextFreeGrammar pcfg, Sentence sentence, Chart[] chart, ChartEntry chartEntry){
-        Symbol B, W;
+    private int scanner(CompiledGrammar grammar, Sentence sentence, Chart[] chart, ChartEntry chartEntry){
+        int B, candidate;
         Word word;
-        ArrayList<Rule> candidates;
-        B = chartEntry.getNextCategory();
+        B = grammar.getSymbolId(chartEntry.getNextCategory());
         if (chartEntry.to() == sentence.wordCount())
-            return;
+            return 0;
         word = sentence.getWord(chartEntry.to());
-        W = new Symbol(word.getName());
-        candidates = pcfg.getTerminalRulesWithRightSideX(W);
-        for (Rule candidate:candidates){
-            if (candidate.getLeftHandSide().equals(B)){
-                chart[chartEntry.to() + 1].addChartEntry(new ChartEntry((ProbabilisticRule)candidate, chartEntry.to(), chartEntry.to() + 1, 1));
-                break;
-            }
+        candidate = grammar.getLexicon().getRule(B, grammar.getSymbolId(word.getName()));
+        if (candidate != -1){
+            chart[chartEntry.to() + 1].addChartEntry(new ChartEntry((ProbabilisticRule)grammar.getRule(candidate), chartEntry.to(), chartEntry.to() + 1, 1));
         }
+        return 1;
     }
 
-    private void completer(Chart[] chart, ChartEntry chartEntry){
-        Symbol B;
+    private void completer(CompiledGrammar grammar, Chart[] chart, CompletionSet completedList, ChartEntry chartEntry){
+        int B;
         ChartEntry newEntry;
         ArrayList<ChartEntry> candidates;
-        B = chartEntry.getRule().getLeftHandSide();
+        B = grammar.getSymbolId(chartEntry.getRule().getLeftHandSide());
         candidates = chart[chartEntry.from()].getNextCategoryX(B);
         for (ChartEntry A: candidates){
             if (A.getRule().getRightHandSideSize() - A.dotPlace() - 1 + chartEntry.to() < chart.length){
-                if (!completedList.containsKey(A.toStringExtended() + chartEntry.toStringExtended())) {
+                if (!completedList.contains(CompletionSet.completionKey(A, chartEntry))) {
                     newEntry = new ChartEntry((ProbabilisticRule)A.getRule(), A.from(), chartEntry.to(), A.dotPlace() + 1, A, chartEntry);
-                    if (!newEntry.toString().equals(chartEntry.toString())) {
+                    if (!newEntry.hasSameItem(chartEntry)) {
                         if (chart[chartEntry.to()].addOrUpdate(newEntry)){
-                            completedList.put(A.toStringExtended() + chartEntry.toStringExtended(), A.dotPlace());
+                            completedList.add(CompletionSet.completionKey(A, chartEntry));
                         }
                     }
                 }
@@ -71,69 +90,140 @@ public class ProbabilisticEarleyParser implements ProbabilisticParser {
     }
 
     public Chart[] constructChart(ProbabilisticContextFreeGrammar pcfg, Sentence sentence) {
-        int i, j;
-        long start, end;
+        int i, j, predictorCalls, scannerCalls, completerCalls, ruleLookups;
+        long start, columnStart;
         Chart[] chart;
-        ArrayList<Rule> initialRules;
-        ArrayList<Symbol> posTags;
+        int[] initialRules;
+        CompiledGrammar grammar = pcfg.compile();
         ChartEntry chartEntry;
+        BitSet[] predicted;
+        CompletionSet completedList;
+        start = System.nanoTime();
         chart = new Chart[sentence.wordCount() + 1];
-        predictedList = new ArrayList[sentence.wordCount() + 1];
+        predicted = new BitSet[sentence.wordCount() + 1];
         for (i = 0; i < sentence.wordCount() + 1; i++){
-            chart[i] = new Chart();
-            predictedList[i] = new ArrayList<Symbol>();
+            chart[i] = new Chart(grammar);
+            predicted[i] = new BitSet(grammar.getNonTerminalCount());
         }
-        initialRules = pcfg.getRulesWithLeftSideX(new Symbol("S"));
-        for (Rule rule:initialRules){
-            chart[0].addChartEntry(new ChartEntry((ProbabilisticRule)rule, 0, 0, 0));
+        initialRules = grammar.getRulesWithLeftSideX(grammar.getSymbolId("S"));
+        for (int rule:initialRules){
+            chart[0].addChartEntry(new ChartEntry((ProbabilisticRule)grammar.getRule(rule), 0, 0, 0));
         }
-        posTags = pcfg.partOfSpeechTags();
         for (i = 0; i <= sentence.wordCount(); i++){
-            start = System.currentTimeMillis();
-            completedList = new HashMap<>();
+            columnStart = System.nanoTime();
+            predictorCalls = 0;
+            scannerCalls = 0;
+            completerCalls = 0;
+            ruleLookups = 0;
+            completedList = new CompletionSet();
             for (j = 0; j < chart[i].size(); j++){
                 chartEntry = chart[i].getEntry(j);
                 if (!chartEntry.isComplete()){
-                    if (!chartEntry.nextCategoryPartOfSpeech(posTags)){
-                        predictor(pcfg, chart, chartEntry);
+                    if (!grammar.isPartOfSpeechTag(grammar.getSymbolId(chartEntry.getNextCategory()))){
+                        ruleLookups += predictor(grammar, chart, predicted, chartEntry);
+                        predictorCalls++;
                     } else {
-                        scanner(pcfg, sentence, chart, chartEntry);
+                        ruleLookups += scanner(grammar, sentence, chart, chartEntry);
+                        scannerCalls++;
                     }
                 } else {
-                    completer(chart, chartEntry);
+                    completer(grammar, chart, completedList, chartEntry);
+                    completerCalls++;
                 }
             }
-            end = System.currentTimeMillis();
-            System.out.println("Word " + i + " completed in " + (end - start) + " milliseconds");
+            listener.columnCompleted(i, chart[i].size(), predictorCalls, scannerCalls, completerCalls, ruleLookups, System.nanoTime() - columnStart);
         }
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - start);
         return chart;
     }
 
+    /**
+     * Constructs an array of most probable parse trees for a given sentence according to the given grammar. The
+     * complete S entries spanning the sentence are compared with the log probabilities stored in the chart, and parse
+     * trees are constructed only for the most probable entries.
+     * @param pCfg Probabilistic context free grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Array list of most probable parse trees for the given sentence.
+     */
     public ArrayList<ParseTree> parse(ProbabilisticContextFreeGrammar pCfg, Sentence sentence){
-        ArrayList<ParseTree> parseTrees;
         ArrayList<ParseTree> result;
-        ArrayList<ChartEntry> entries;
-        ParseTree tree;
+        ArrayList<ChartEntry> entries, bestEntries;
         double bestProbability, probability;
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
         Chart[] chart = constructChart(pCfg, sentence);
-        parseTrees = new ArrayList<>();
+        treeStart = System.nanoTime();
         bestProbability = -Double.MAX_VALUE;
+        bestEntries = new ArrayList<>();
         entries = chart[sentence.wordCount()].getSentenceChartEntries(sentence.wordCount());
         for (ChartEntry entry: entries){
-            tree = new ParseTree(entry.constructParseNode());
-            probability = pCfg.probability(tree);
+            probability = entry.getLogProbability();
             if (probability > bestProbability){
                 bestProbability = probability;
+                bestEntries.clear();
             }
-            parseTrees.add(tree);
-        }
-        result = new ArrayList<>();
-        for (ParseTree parseTree: parseTrees){
-            probability = pCfg.probability(parseTree);
             if (probability == bestProbability){
-                result.add(parseTree);
+                bestEntries.add(entry);
             }
         }
+        result = new ArrayList<>();
+        for (ChartEntry entry: bestEntries){
+            result.add(new ParseTree(entry.constructParseNode()));
+        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, result.size(), System.nanoTime() - start);
         return result;
     }
+
+    /**
+     * Constructs the subtree of the given derivation of a constituent. A constituent is derived either from a scanned
+     * word or from a complete dotted rule, whose children are collected from the chain of its dotted rules.
+     * @param grammar Compiled grammar used in parsing.
+     * @param derivation Derivation of the constituent.
+     * @return Root of the subtree.
+     */
+    private ParseNode constructParseNode(CompiledGrammar grammar, Derivation<EarleyKBestExtractor.Item> derivation){
+        Rule rule = grammar.getRule(derivation.getEdge().getRule());
+        if (derivation.getEdge().tailCount() == 0){
+            return new ParseNode(new ParseNode(rule.getRightHandSideAt(0)), rule.getLeftHandSide());
+        }
+        ParseNode node = new ParseNode(rule.getLeftHandSide());
+        ArrayList<Derivation<EarleyKBestExtractor.Item>> children = new ArrayList<>();
+        Derivation<EarleyKBestExtractor.Item> current = derivation.getChild(0);
+        while (current.getEdge().tailCount() != 0){
+            children.add(0, current.getChild(1));
+            current = current.getChild(0);
+        }
+        for (Derivation<EarleyKBestExtractor.Item> child : children){
+            node.addChild(constructParseNode(grammar, child));
+        }
+        return node;
+    }
+
+    /**
+     * Constructs the k most probable parse trees of the given sentence in decreasing order of probability. The chart
+     * is filled once, then the derivations are extracted lazily from the constituents and dotted rules of the chart
+     * with {@link KBestExtractor}, so the extra cost is proportional to k times the size of a tree. Derivations
+     * containing unary cycles are not extracted.
+     * @param pCfg Probabilistic context free grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @param k Maximum number of parse trees.
+     * @return Array list of at most k most probable parse trees, the first tree is the most probable one.
+     */
+    public ArrayList<ParseTree> parseKBest(ProbabilisticContextFreeGrammar pCfg, Sentence sentence, int k){
+        ArrayList<ParseTree> parseTrees = new ArrayList<>();
+        CompiledGrammar grammar = pCfg.compile();
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
+        Chart[] chart = constructChart(pCfg, sentence);
+        treeStart = System.nanoTime();
+        EarleyKBestExtractor extractor = new EarleyKBestExtractor(grammar, chart, sentence);
+        EarleyKBestExtractor.Item root = new EarleyKBestExtractor.Item(grammar.getSymbolId("S"), 0, sentence.wordCount(), -1);
+        for (Derivation<EarleyKBestExtractor.Item> derivation : extractor.getKBest(root, k)){
+            parseTrees.add(new ParseTree(constructParseNode(grammar, derivation)));
+        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, parseTrees.size(), System.nanoTime() - start);
+        return parseTrees;
+    }
 }
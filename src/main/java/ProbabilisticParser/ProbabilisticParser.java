@@ -1,11 +1,34 @@
 package ProbabilisticParser;
 
+import ContextFreeGrammar.TaskRunner;
 import Corpus.Sentence;
 import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
 import ParseTree.ParseTree;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 public interface ProbabilisticParser {
 
     ArrayList<ParseTree> parse(ProbabilisticContextFreeGrammar pCfg, Sentence sentence);
+
+    /**
+     * Parses the given sentences concurrently with the given executor. Each sentence is parsed by a single task, the
+     * grammar is only read by the tasks, and the parsers keep their state in local variables, therefore a single
+     * parser and a single grammar can be shared by all tasks. The grammar can be frozen with
+     * {@link ProbabilisticContextFreeGrammar#freeze()} to guarantee that its rules are not changed during parsing.
+     * @param pCfg Probabilistic context free grammar used in parsing.
+     * @param sentences Sentences to be parsed.
+     * @param executor Executor service running the parse tasks.
+     * @return Most probable parse trees of each sentence, in the order of the given sentences.
+     */
+    default ArrayList<ArrayList<ParseTree>> parseAll(ProbabilisticContextFreeGrammar pCfg, List<Sentence> sentences, ExecutorService executor){
+        ArrayList<Callable<ArrayList<ParseTree>>> tasks = new ArrayList<>();
+        pCfg.compile();
+        for (Sentence sentence : sentences){
+            tasks.add(() -> parse(pCfg, sentence));
+        }
+        return TaskRunner.runAll(tasks, executor);
+    }
 }
@@ -0,0 +1,154 @@
+package ProbabilisticParser;
+
+import java.util.Arrays;
+
+public class ViterbiCell {
+
+    private final double[] logProbabilities;
+    private final int[] rules;
+    private final int[] splits;
+    private final int[] lastUpdates;
+    private int[] updates;
+    private int updateCount;
+    private int[] symbolIds = null;
+
+    /**
+     * Constructor for the ViterbiCell class. A Viterbi cell stores, for every non-terminal spanning a substring of the
+     * sentence, the log probability of its most probable derivation together with the rule and the split point of
+     * that derivation, in arrays indexed by the id of the non-terminal. No parse nodes are stored in the cell.
+     * @param nonTerminalCount Number of non-terminal symbols in the grammar.
+     */
+    public ViterbiCell(int nonTerminalCount){
+        logProbabilities = new double[nonTerminalCount];
+        rules = new int[nonTerminalCount];
+        Arrays.fill(rules, -1);
+        splits = new int[nonTerminalCount];
+        lastUpdates = new int[nonTerminalCount];
+        updates = new int[8];
+        updateCount = 0;
+    }
+
+    /**
+     * Updates the derivation of the given non-terminal, if the non-terminal is not in the cell or the given
+     * derivation is more probable than the stored one. For a rule X -&gt;  YZ, split is the position of the last word
+     * spanned by Y; for a terminal rule X -&gt;  a, split is -1.
+     * @param symbolId Id of the non-terminal X.
+     * @param logProbability Log probability of the derivation.
+     * @param ruleId Id of the rule used in the derivation.
+     * @param split Split point of the derivation.
+     * @return True, if the cell is updated; false otherwise.
+     */
+    public boolean update(int symbolId, double logProbability, int ruleId, int split){
+        if (rules[symbolId] != -1 && logProbabilities[symbolId] >= logProbability){
+            return false;
+        }
+        logProbabilities[symbolId] = logProbability;
+        rules[symbolId] = ruleId;
+        splits[symbolId] = split;
+        if (updateCount == updates.length){
+            updates = Arrays.copyOf(updates, 2 * updates.length);
+        }
+        lastUpdates[symbolId] = updateCount;
+        updates[updateCount++] = symbolId;
+        symbolIds = null;
+        return true;
+    }
+
+    /**
+     * Checks if the non-terminal with the given id spans this cell.
+     * @param symbolId Id of the non-terminal.
+     * @return True, if the non-terminal is in the cell; false otherwise.
+     */
+    public boolean contains(int symbolId){
+        return symbolId >= 0 && symbolId < rules.length && rules[symbolId] != -1;
+    }
+
+    /**
+     * Returns the log probability of the most probable derivation of the given non-terminal.
+     * @param symbolId Id of the non-terminal.
+     * @return Log probability of the derivation.
+     */
+    public double getLogProbability(int symbolId){
+        return logProbabilities[symbolId];
+    }
+
+    /**
+     * Returns the id of the rule of the most probable derivation of the given non-terminal.
+     * @param symbolId Id of the non-terminal.
+     * @return Id of the rule.
+     */
+    public int getRule(int symbolId){
+        return rules[symbolId];
+    }
+
+    /**
+     * Returns the split point of the most probable derivation of the given non-terminal.
+     * @param symbolId Id of the non-terminal.
+     * @return Position of the last word spanned by the first child, -1 for terminal rules.
+     */
+    public int getSplit(int symbolId){
+        return splits[symbolId];
+    }
+
+    /**
+     * Returns the ids of the non-terminals in the cell, ordered by the time of their last update. This is the order of
+     * the partial parses in a {@link SyntacticParser.PartialParseList} updated with the same derivations.
+     * @return Ids of the non-terminals in the cell.
+     */
+    public int[] getSymbolIds(){
+        int count = 0;
+        if (symbolIds == null){
+            int[] result = new int[updateCount];
+            for (int i = 0; i < updateCount; i++){
+                if (lastUpdates[updates[i]] == i && rules[updates[i]] != -1){
+                    result[count++] = updates[i];
+                }
+            }
+            symbolIds = Arrays.copyOf(result, count);
+        }
+        return symbolIds;
+    }
+
+    /**
+     * Returns number of non-terminals in the cell.
+     * @return Number of non-terminals in the cell.
+     */
+    public int size(){
+        return getSymbolIds().length;
+    }
+
+    /**
+     * Prunes the cell. A non-terminal is kept if it is among the beamSize most probable non-terminals of the cell and
+     * its log probability is not less than the maximum log probability minus beamWidth.
+     * @param beamSize Maximum number of non-terminals to be kept.
+     * @param beamWidth Maximum difference between the log probabilities of the best and a kept non-terminal.
+     * @return Number of non-terminals removed.
+     */
+    public int prune(int beamSize, double beamWidth){
+        int[] ids = getSymbolIds();
+        int kept = 0;
+        double threshold;
+        if (ids.length == 0){
+            return 0;
+        }
+        double[] sorted = new double[ids.length];
+        for (int i = 0; i < ids.length; i++){
+            sorted[i] = logProbabilities[ids[i]];
+        }
+        Arrays.sort(sorted);
+        threshold = sorted[ids.length - 1] - beamWidth;
+        if (beamSize < ids.length && sorted[ids.length - beamSize] > threshold){
+            threshold = sorted[ids.length - beamSize];
+        }
+        int[] result = new int[ids.length];
+        for (int symbolId : ids){
+            if (kept < beamSize && logProbabilities[symbolId] >= threshold){
+                result[kept++] = symbolId;
+            } else {
+                rules[symbolId] = -1;
+            }
+        }
+        symbolIds = Arrays.copyOf(result, kept);
+        return ids.length - kept;
+    }
+}
@@ -0,0 +1,81 @@
+package ProbabilisticParser;
+
+import ContextFreeGrammar.CompiledGrammar;
+
+import java.util.ArrayList;
+
+public class ViterbiKBestExtractor extends KBestExtractor<Long> {
+
+    private final CompiledGrammar grammar;
+    private final ViterbiCell[][] table;
+
+    /**
+     * Constructor for the ViterbiKBestExtractor class. The nodes of the hypergraph are the non-terminals of the cells
+     * of a filled CYK table, the incoming edges of a node are the binary rules whose children are in the cells
+     * (i, k) and (k + 1, j), and the terminal rule for a single word.
+     * @param grammar Compiled grammar in Chomsky Normal Form used in parsing.
+     * @param table Filled table of Viterbi cells.
+     */
+    public ViterbiKBestExtractor(CompiledGrammar grammar, ViterbiCell[][] table){
+        this.grammar = grammar;
+        this.table = table;
+    }
+
+    /**
+     * Packs a non-terminal and its span into a node key.
+     * @param symbolId Id of the non-terminal.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param wordCount Number of words in the sentence.
+     * @return Node key.
+     */
+    public static long node(int symbolId, int i, int j, int wordCount){
+        return ((long) symbolId * wordCount + i) * wordCount + j;
+    }
+
+    /**
+     * Returns the position of the last word spanned by the given node.
+     * @param node Node key.
+     * @param wordCount Number of words in the sentence.
+     * @return Position of the last word.
+     */
+    public static int lastPosition(long node, int wordCount){
+        return (int) (node % wordCount);
+    }
+
+    /**
+     * Returns the incoming edges of the non-terminal X spanning the words from position i to position j. Only the
+     * non-terminals in the cells of the table are used, so the edges are consistent with the pruned table.
+     * @param node Node key.
+     * @return Incoming edges of the node.
+     */
+    protected ArrayList<Hyperedge<Long>> incomingEdges(Long node){
+        int n = table.length, k, left, right;
+        int j = (int) (node % n);
+        int i = (int) ((node / n) % n);
+        int X = (int) (node / n / n);
+        ArrayList<Hyperedge<Long>> edges = new ArrayList<>();
+        if (!table[i][j].contains(X)){
+            return edges;
+        }
+        if (i == j){
+            edges.add(new Hyperedge<>(table[i][i].getRule(X), new ArrayList<>(), table[i][i].getLogProbability(X)));
+            return edges;
+        }
+        for (k = i; k < j; k++){
+            for (int rule : grammar.getRulesWithLeftSideX(X)){
+                if (grammar.getRightHandSideSize(rule) == 2){
+                    left = grammar.getRightHandSideAt(rule, 0);
+                    right = grammar.getRightHandSideAt(rule, 1);
+                    if (table[i][k].contains(left) && table[k + 1][j].contains(right)){
+                        ArrayList<Long> tails = new ArrayList<>(2);
+                        tails.add(node(left, i, k, n));
+                        tails.add(node(right, k + 1, j, n));
+                        edges.add(new Hyperedge<>(rule, tails, grammar.getRule(rule).getLogProbability()));
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+}
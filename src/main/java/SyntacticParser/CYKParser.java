@@ -2,13 +2,180 @@ package SyntacticParser;
 
 import ContextFreeGrammar.*;
 import Corpus.Sentence;
-import Dictionary.Word;
 import ParseTree.*;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class CYKParser implements SyntacticParser{
 
+    private final boolean packed;
+    private final ForkJoinPool pool;
+    private ParserListener listener = ParserListener.NO_OP;
+
+    /**
+     * Constructor for the CYKParser class. The parser stores every derivation as a separate parse node in the table.
+     */
+    public CYKParser(){
+        this(false);
+    }
+
+    /**
+     * Another constructor for the CYKParser class.
+     * @param packed If true, the parser works in packed mode. In packed mode, each cell of the table is a bit vector
+     *               over the non-terminals of the grammar with back-pointers, and parse trees are constructed only
+     *               for the S entries spanning the whole sentence.
+     */
+    public CYKParser(boolean packed){
+        this(packed, null);
+    }
+
+    /**
+     * Another constructor for the CYKParser class. The cells of the table spanning the same number of words are
+     * filled concurrently in the given pool, the parse trees are the same as the ones found by the sequential parser.
+     * @param packed If true, the parser works in packed mode.
+     * @param pool Fork join pool in which the cells are filled, null for sequential filling.
+     */
+    public CYKParser(boolean packed, ForkJoinPool pool){
+        this.packed = packed;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the listener notified of the cells, the phases and the sentences parsed by this parser. When the cells
+     * are filled in a fork join pool, the listener should be thread safe.
+     * @param listener Parser listener, {@link ParserListener#NO_OP} to disable instrumentation.
+     */
+    public void setListener(ParserListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Accessor for the listener attribute.
+     * @return Parser listener of this parser.
+     */
+    public ParserListener getListener(){
+        return listener;
+    }
+
+    /**
+     * Fills the packed cell spanning the words from position i to position j by combining the non-terminals of the
+     * cells (i, k) and (k + 1, j).
+     * @param grammar Compiled grammar used in parsing.
+     * @param chart Packed chart.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     */
+    private void fillPackedCell(CompiledGrammar grammar, PackedChart chart, int i, int j){
+        int[] candidates;
+        int lookups = 0;
+        PackedCell cell = chart.getCell(i, j);
+        for (int k = i; k < j; k++){
+            for (int left : chart.getCell(i, k).getSymbolIds()){
+                for (int right : chart.getCell(k + 1, j).getSymbolIds()){
+                    candidates = grammar.getRulesWithTwoNonTerminalsOnRightSide(left, right);
+                    lookups++;
+                    for (int candidate: candidates){
+                        cell.add(grammar.getLeftHandSide(candidate), candidate, k);
+                    }
+                }
+            }
+        }
+        listener.cellCompleted(i, j, cell.getSymbolIds().length, lookups);
+    }
+
+    /**
+     * Fills the cell spanning the words from position i to position j with all partial parses obtained by combining
+     * the partial parses of the cells (i, k) and (k + 1, j).
+     * @param grammar Compiled grammar used in parsing.
+     * @param table Table of partial parses.
+     * @param symbolIds Ids of the root symbols of the partial parses in the completed cells.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     */
+    private void fillCell(CompiledGrammar grammar, PartialParseList[][] table, int[][][] symbolIds, int i, int j){
+        int k, x, y, lookups = 0;
+        ParseNode leftNode, rightNode;
+        int[] candidates;
+        for (k = i; k < j; k++){
+            for (x = 0; x < table[i][k].size(); x++){
+                leftNode = table[i][k].getPartialParse(x);
+                for (y = 0; y < table[k + 1][j].size(); y++){
+                    candidates = grammar.getRulesWithTwoNonTerminalsOnRightSide(symbolIds[i][k][x], symbolIds[k + 1][j][y]);
+                    lookups++;
+                    rightNode = table[k + 1][j].getPartialParse(y);
+                    for (int candidate: candidates){
+                        table[i][j].addPartialParse(new ParseNode(leftNode, rightNode, grammar.getRule(candidate).getLeftHandSide()));
+                    }
+                }
+            }
+        }
+        symbolIds[i][j] = table[i][j].getSymbolIds(grammar);
+        listener.cellCompleted(i, j, table[i][j].size(), lookups);
+    }
+
+    /**
+     * Fills a packed chart for the given sentence. Each cell of the chart contains the set of non-terminals spanning
+     * the corresponding substring and the back-pointers of their derivations, so the size of a cell is bounded by the
+     * number of non-terminals in the grammar. The words of the sentence should already be normalized with
+     * {@link ContextFreeGrammar#normalizeSentence(Sentence)}.
+     * @param cfg Context free grammar in Chomsky Normal Form used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Packed chart of the sentence.
+     */
+    public PackedChart constructPackedChart(ContextFreeGrammar cfg, Sentence sentence){
+        int[] candidates;
+        CompiledGrammar grammar = cfg.compile();
+        long start = System.nanoTime();
+        PackedChart chart = new PackedChart(grammar, sentence);
+        for (int i = 0; i < sentence.wordCount(); i++){
+            candidates = grammar.getTerminalRulesWithRightSideX(grammar.getSymbolId(sentence.getWord(i).getName()));
+            for (int candidate: candidates){
+                chart.getCell(i, i).add(grammar.getLeftHandSide(candidate), candidate, -1);
+            }
+            listener.cellCompleted(i, i, chart.getCell(i, i).getSymbolIds().length, 1);
+        }
+        listener.phaseCompleted(ParserPhase.LEXICAL, System.nanoTime() - start);
+        start = System.nanoTime();
+        DiagonalScheduler.fill(sentence.wordCount(), pool, (i, j) -> fillPackedCell(grammar, chart, i, j));
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - start);
+        return chart;
+    }
+
+    /**
+     * Checks if the given sentence can be generated by the given grammar. Only the packed chart is constructed, no
+     * parse trees are built. The given sentence is not modified.
+     * @param cfg Context free grammar in Chomsky Normal Form used in parsing.
+     * @param sentence Sentence to be recognized.
+     * @return True, if the sentence is recognized by the grammar; false otherwise.
+     */
+    public boolean recognize(ContextFreeGrammar cfg, Sentence sentence){
+        return constructPackedChart(cfg, cfg.normalizeSentence(sentence)).isRecognized();
+    }
+
+    /**
+     * Constructs the packed parse forest of the given sentence. Only the packed chart is filled; the trees can be
+     * counted with {@link ParseForest#countDerivations()} and constructed one at a time by iterating over the forest,
+     * so the parser holds no trees however ambiguous the sentence is. The trees of the forest are the trees returned
+     * by {@link #parse(ContextFreeGrammar, Sentence)} in packed mode, in the same order. The given sentence is not
+     * modified.
+     * @param cfg Context free grammar in Chomsky Normal Form used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Packed parse forest of the sentence.
+     */
+    public ParseForest parseForest(ContextFreeGrammar cfg, Sentence sentence){
+        ParseForest forest;
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
+        PackedChart chart = constructPackedChart(cfg, cfg.normalizeSentence(sentence));
+        treeStart = System.nanoTime();
+        forest = new ParseForest(chart, sentence);
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, forest.countDerivations().min(BigInteger.valueOf(Integer.MAX_VALUE)).intValue(), System.nanoTime() - start);
+        return forest;
+    }
+
     /**
      * Constructs an array of possible parse trees for a given sentence according to the given grammar. CYK parser
      * is based on a dynamic programming algorithm.
@@ -17,40 +184,38 @@ public class CYKParser implements SyntacticParser{
      * @return Array list of possible parse trees for the given sentence.
      */
     public ArrayList<ParseTree> parse(ContextFreeGrammar cfg, Sentence sentence) {
-        int i, j, k, x, y;
+        if (packed){
+            return packedParse(cfg, sentence);
+        }
+        int i, j;
+        long start, phaseStart;
         PartialParseList[][] table;
-        ParseNode leftNode, rightNode;
-        ArrayList<Rule> candidates;
+        int[][][] symbolIds;
+        int[] candidates;
+        CompiledGrammar grammar = cfg.compile();
         ArrayList<ParseTree> parseTrees = new ArrayList<>();
-        Sentence backUp = new Sentence();
-        for (i = 0; i < sentence.wordCount(); i++){
-            backUp.addWord(new Word(sentence.getWord(i).getName()));
-        }
-        cfg.updateExceptionalWordsInSentence(sentence);
+        Sentence backUp = sentence;
+        start = System.nanoTime();
+        listener.parseStarted(backUp);
+        sentence = cfg.normalizeSentence(backUp);
         table = new PartialParseList[sentence.wordCount()][sentence.wordCount()];
         for (i = 0; i < sentence.wordCount(); i++)
             for (j = i; j < sentence.wordCount(); j++)
                 table[i][j] = new PartialParseList();
+        symbolIds = new int[sentence.wordCount()][sentence.wordCount()][];
         for (i = 0; i < sentence.wordCount(); i++){
-            candidates = cfg.getTerminalRulesWithRightSideX(new Symbol(sentence.getWord(i).getName()));
-            for (Rule candidate: candidates){
-                table[i][i].addPartialParse(new ParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), candidate.getLeftHandSide()));
+            candidates = grammar.getTerminalRulesWithRightSideX(grammar.getSymbolId(sentence.getWord(i).getName()));
+            for (int candidate: candidates){
+                table[i][i].addPartialParse(new ParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), grammar.getRule(candidate).getLeftHandSide()));
             }
+            symbolIds[i][i] = table[i][i].getSymbolIds(grammar);
+            listener.cellCompleted(i, i, table[i][i].size(), 1);
         }
-        for (j = 1; j < sentence.wordCount(); j++){
-            for (i = j - 1; i >= 0; i--)
-                for (k = i; k < j; k++){
-                    for (x = 0; x < table[i][k].size(); x++)
-                        for (y = 0; y < table[k + 1][j].size(); y++){
-                            leftNode = table[i][k].getPartialParse(x);
-                            rightNode = table[k + 1][j].getPartialParse(y);
-                            candidates = cfg.getRulesWithTwoNonTerminalsOnRightSide(leftNode.getData(), rightNode.getData());
-                            for (Rule candidate: candidates){
-                                table[i][j].addPartialParse(new ParseNode(leftNode, rightNode, candidate.getLeftHandSide()));
-                            }
-                        }
-                }
-        }
+        listener.phaseCompleted(ParserPhase.LEXICAL, System.nanoTime() - start);
+        phaseStart = System.nanoTime();
+        DiagonalScheduler.fill(sentence.wordCount(), pool, (first, last) -> fillCell(grammar, table, symbolIds, first, last));
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - phaseStart);
+        phaseStart = System.nanoTime();
         for (i = 0; i < table[0][sentence.wordCount() - 1].size(); i++){
             if (table[0][sentence.wordCount() - 1].getPartialParse(i).getData().getName().equals("S")) {
                 ParseTree parseTree = new ParseTree(table[0][sentence.wordCount() - 1].getPartialParse(i));
@@ -62,6 +227,30 @@ public class CYKParser implements SyntacticParser{
         for (ParseTree parseTree : parseTrees){
             cfg.reinsertExceptionalWordsFromSentence(parseTree, backUp);
         }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - phaseStart);
+        listener.parseCompleted(backUp, parseTrees.size(), System.nanoTime() - start);
+        return parseTrees;
+    }
+
+    /**
+     * Constructs the parse trees of the given sentence from a packed chart. The trees are built by following the
+     * back-pointers of the S entry spanning the whole sentence, no intermediate parse nodes are stored in the chart.
+     * @param cfg Context free grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Array list of possible parse trees for the given sentence.
+     */
+    private ArrayList<ParseTree> packedParse(ContextFreeGrammar cfg, Sentence sentence){
+        ArrayList<ParseTree> parseTrees;
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
+        PackedChart chart = constructPackedChart(cfg, cfg.normalizeSentence(sentence));
+        treeStart = System.nanoTime();
+        parseTrees = chart.getParseTrees(Integer.MAX_VALUE);
+        for (ParseTree parseTree : parseTrees){
+            cfg.reinsertExceptionalWordsFromSentence(parseTree, sentence);
+        }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, parseTrees.size(), System.nanoTime() - start);
         return parseTrees;
     }
 }
@@ -1,30 +1,70 @@
 package SyntacticParser;
 
+import ContextFreeGrammar.CompiledGrammar;
 import ContextFreeGrammar.Rule;
-import ParseTree.Symbol;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 
 public class Chart {
 
+    private static final ArrayList<ChartEntry> EMPTY = new ArrayList<>();
+
+    private static class EntryKey {
+
+        private final Rule rule;
+        private final int from;
+        private final int dotPlace;
+        private final int hash;
+
+        private EntryKey(ChartEntry chartEntry){
+            this(chartEntry.getRule(), chartEntry.from(), chartEntry.dotPlace());
+        }
+
+        private EntryKey(Rule rule, int from, int dotPlace){
+            this.rule = rule;
+            this.from = from;
+            this.dotPlace = dotPlace;
+            hash = (rule.hashCode() * 31 + from) * 31 + dotPlace;
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof EntryKey)){
+                return false;
+            }
+            EntryKey key = (EntryKey) aThat;
+            return hash == key.hash && from == key.from && dotPlace == key.dotPlace && rule.equals(key.rule);
+        }
+
+        public int hashCode(){
+            return hash;
+        }
+    }
+
+    private final CompiledGrammar grammar;
     private final ArrayList<ChartEntry> chartEntries;
-    private final ArrayList<ChartEntry> chartEntriesSorted;
-    private final ArrayList<ChartEntry> chartEntriesNextCategorySorted;
+    private final LinkedHashMap<EntryKey, ArrayList<ChartEntry>> chartEntryIndex;
+    private final ArrayList<ArrayList<ChartEntry>> nextCategoryIndex;
 
-    public Chart(){
+    /**
+     * Constructor for the Chart class. The incomplete entries are indexed by the compiled id of their next category,
+     * so the entries waiting for a symbol are found without hashing the symbol name.
+     * @param grammar Compiled grammar used in parsing.
+     */
+    public Chart(CompiledGrammar grammar){
+        this.grammar = grammar;
         chartEntries = new ArrayList<>();
-        chartEntriesSorted = new ArrayList<>();
-        chartEntriesNextCategorySorted = new ArrayList<>();
+        chartEntryIndex = new LinkedHashMap<>();
+        nextCategoryIndex = new ArrayList<>(Collections.nCopies(grammar.getSymbolCount(), null));
     }
 
     public void writeToFile(String fileName){
         try {
             FileWriter fw = new FileWriter(fileName);
-            for (ChartEntry entry:chartEntriesSorted){
+            for (ChartEntry entry:chartEntries){
                 fw.write(entry.toString() + "\n");
             }
             fw.close();
@@ -37,97 +77,115 @@ public class Chart {
         return chartEntries.size();
     }
 
-
+    /**
+     * Adds the given entry to the chart if there is no entry with the same rule, origin and dot place; otherwise
+     * replaces that entry with the given one if the given entry is more probable. The replacement takes the place of
+     * the old entry in the index and, at the position recorded in the old entry, in the next category bucket, so both
+     * replacements are constant time.
+     * @param chartEntry Entry to be added.
+     * @return True, if the entry is added or replaces an existing entry; false otherwise.
+     */
     public boolean addOrUpdate(ChartEntry chartEntry){
-        int middle, middleUp, middleDown;
         ChartEntry deleted;
-        Comparator<ChartEntry> comparator = new ChartEntryStringComparator();
-        middle = Collections.binarySearch(chartEntriesSorted, chartEntry, comparator);
-        if (middle < 0){
-            addChartEntry(chartEntry);
+        EntryKey key = new EntryKey(chartEntry);
+        ArrayList<ChartEntry> sameEntries = chartEntryIndex.get(key);
+        if (sameEntries == null){
+            addChartEntry(key, chartEntry);
             return true;
-        } else {
-            if (chartEntry.getProbability() > chartEntriesSorted.get(middle).getProbability()){
-                deleted = chartEntriesSorted.get(middle);
-                chartEntriesSorted.set(middle, chartEntry);
-                Comparator<ChartEntry> nextCategoryComparator = new ChartEntryNextCategoryComparator();
-                middle = Collections.binarySearch(chartEntriesNextCategorySorted, chartEntry, nextCategoryComparator);
-                if (middle > 0){
-                    if (chartEntriesNextCategorySorted.get(middle).equals(deleted)){
-                        chartEntriesNextCategorySorted.set(middle, chartEntry);
-                    } else {
-                        middleUp = middle - 1;
-                        while (middleUp >= 0 && !chartEntriesNextCategorySorted.get(middleUp).isComplete() && chartEntriesNextCategorySorted.get(middleUp).getNextCategory().equals(chartEntry.getNextCategory())){
-                            if (chartEntriesNextCategorySorted.get(middleUp).equals(deleted)){
-                                chartEntriesNextCategorySorted.set(middleUp, chartEntry);
-                                break;
-                            }
-                            middleUp--;
-                        }
-                        middleDown = middle;
-                        while (middleDown < chartEntriesNextCategorySorted.size() && !chartEntriesNextCategorySorted.get(middleDown).isComplete() && chartEntriesNextCategorySorted.get(middleDown).getNextCategory().equals(chartEntry.getNextCategory())){
-                            if (chartEntriesNextCategorySorted.get(middleDown).equals(deleted)){
-                                chartEntriesNextCategorySorted.set(middleDown, chartEntry);
-                                break;
-                            }
-                            middleDown++;
-                        }
-                    }
-                }
-                return true;
+        }
+        deleted = sameEntries.get(0);
+        if (chartEntry.getLogProbability() > deleted.getLogProbability()){
+            chartEntry.setIndex(deleted.getIndex());
+            sameEntries.set(0, chartEntry);
+            if (deleted.getNextCategoryPosition() >= 0){
+                nextCategoryIndex.get(grammar.getSymbolId(chartEntry.getNextCategory())).set(deleted.getNextCategoryPosition(), chartEntry);
+                chartEntry.setNextCategoryPosition(deleted.getNextCategoryPosition());
             }
+            return true;
         }
         return false;
     }
 
+    /**
+     * Adds the given entry to the chart, if the chart does not contain an entry with the same rule, origin, dot place
+     * and back-pointers. Entries with the same rule, origin and dot place are found with a single hash lookup.
+     * @param chartEntry Entry to be added.
+     */
     public void addChartEntry(ChartEntry chartEntry){
-        int middle;
-        Comparator<ChartEntry> comparator = new ChartEntryComparator();
-        middle = Collections.binarySearch(chartEntriesSorted, chartEntry, comparator);
-        if (middle < 0){
-            chartEntriesSorted.add(-middle - 1, chartEntry);
-            chartEntries.add(chartEntry);
-            Comparator<ChartEntry> nextCategoryComparator = new ChartEntryNextCategoryComparator();
-            middle = Collections.binarySearch(chartEntriesNextCategorySorted, chartEntry, nextCategoryComparator);
-            if (middle >= 0){
-                chartEntriesNextCategorySorted.add(middle, chartEntry);
-            } else {
-                chartEntriesNextCategorySorted.add(-middle - 1, chartEntry);
-            }
-        }
+        addChartEntry(new EntryKey(chartEntry), chartEntry);
     }
 
-    public ArrayList<ChartEntry> getNextCategoryX(Symbol X){
-        int middle, middleUp, middleDown;
-        ChartEntry dummyChartEntry;
-        ArrayList<ChartEntry> result = new ArrayList<>();
-        Comparator<ChartEntry> nextCategoryComparator = new ChartEntryNextCategoryComparator();
-        dummyChartEntry = new ChartEntry(new Rule(X, X), 0, 0, 0);
-        middle = Collections.binarySearch(chartEntriesNextCategorySorted, dummyChartEntry, nextCategoryComparator);
-        if (middle > 0){
-            middleUp = middle - 1;
-            while (middleUp >= 0 && !chartEntriesNextCategorySorted.get(middleUp).isComplete() && chartEntriesNextCategorySorted.get(middleUp).getNextCategory().equals(X)){
-                result.add(chartEntriesNextCategorySorted.get(middleUp));
-                middleUp--;
+    /**
+     * Adds the given entry with the given key to the chart, if the chart does not contain an entry with the same key
+     * and back-pointers. New entries are appended to the entry list and to the bucket of their next category, and
+     * remember their position in that bucket.
+     * @param key Rule, origin and dot place of the entry.
+     * @param chartEntry Entry to be added.
+     */
+    private void addChartEntry(EntryKey key, ChartEntry chartEntry){
+        ArrayList<ChartEntry> sameEntries = chartEntryIndex.get(key);
+        if (sameEntries == null){
+            sameEntries = new ArrayList<>(1);
+            chartEntryIndex.put(key, sameEntries);
+        } else {
+            for (ChartEntry entry : sameEntries){
+                if (entry.hasSameStates(chartEntry)){
+                    return;
+                }
             }
-            middleDown = middle;
-            while (middleDown < chartEntriesNextCategorySorted.size() && !chartEntriesNextCategorySorted.get(middleDown).isComplete() && chartEntriesNextCategorySorted.get(middleDown).getNextCategory().equals(X)){
-                result.add(chartEntriesNextCategorySorted.get(middleDown));
-                middleDown++;
+        }
+        sameEntries.add(chartEntry);
+        chartEntry.setIndex(chartEntries.size());
+        chartEntries.add(chartEntry);
+        if (!chartEntry.isComplete()){
+            int symbolId = grammar.getSymbolId(chartEntry.getNextCategory());
+            if (symbolId >= 0){
+                ArrayList<ChartEntry> bucket = nextCategoryIndex.get(symbolId);
+                if (bucket == null){
+                    bucket = new ArrayList<>();
+                    nextCategoryIndex.set(symbolId, bucket);
+                }
+                chartEntry.setNextCategoryPosition(bucket.size());
+                bucket.add(chartEntry);
             }
         }
+    }
+
+    /**
+     * Returns the entries waiting for the given symbol, that is the incomplete entries whose next category is X.
+     * @param X Compiled id of the next category.
+     * @return Entries with the next category X. The returned list should not be modified.
+     */
+    public ArrayList<ChartEntry> getNextCategoryX(int X){
+        ArrayList<ChartEntry> result = X >= 0 ? nextCategoryIndex.get(X) : null;
+        if (result == null){
+            return EMPTY;
+        }
         return result;
     }
 
+    /**
+     * Checks if the chart contains an entry with the given rule, origin and dot place.
+     * @param rule Rule of the entry.
+     * @param from Origin of the entry.
+     * @param dotPlace Dot place of the entry.
+     * @return True, if the chart contains such an entry; false otherwise.
+     */
+    public boolean contains(Rule rule, int from, int dotPlace){
+        return chartEntryIndex.containsKey(new EntryKey(rule, from, dotPlace));
+    }
+
     public ChartEntry getEntry(int index){
         return chartEntries.get(index);
     }
 
     public ArrayList<ChartEntry> getSentenceChartEntries(int wordCount){
         ArrayList<ChartEntry> result = new ArrayList<>();
-        for (ChartEntry entry : chartEntriesSorted){
-            if (entry.isComplete() && entry.from() == 0 && entry.to() == wordCount && entry.getRule().getLeftHandSide().equals(new Symbol("S"))){
-                result.add(entry);
+        for (ArrayList<ChartEntry> sameEntries : chartEntryIndex.values()){
+            for (ChartEntry entry : sameEntries){
+                if (entry.isComplete() && entry.from() == 0 && entry.to() == wordCount && entry.getRule().getLeftHandSide().getName().equals("S")){
+                    result.add(entry);
+                }
             }
         }
         return result;
@@ -6,6 +6,7 @@ import ParseTree.ParseNode;
 import ProbabilisticContextFreeGrammar.ProbabilisticRule;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class ChartEntry{
 
@@ -13,58 +14,151 @@ public class ChartEntry{
     private final int from;
     private final int to;
     private final int dotPlace;
-    private double probability = 1.0;
-    private final ArrayList<ChartEntry> states;
+    private double logProbability = 0.0;
+    private final ChartEntry previous;
+    private final ChartEntry added;
+    private int index = -1;
+    private int nextCategoryPosition = -1;
 
     public ChartEntry(Rule rule, int from, int to, int dotPlace){
         this.rule = rule;
         this.from = from;
         this.to = to;
         this.dotPlace = dotPlace;
-        states = new ArrayList<>();
+        previous = null;
+        added = null;
     }
 
     public ChartEntry(ProbabilisticRule rule, int from, int to, int dotPlace){
         this((Rule) rule, from, to, dotPlace);
-        this.probability = rule.getProbability();
-    }
-
+        this.logProbability = rule.getLogProbability();
+    }
+
+    /**
+     * Constructor for an entry obtained by moving the dot of the given entry over the given completed entry. The new
+     * entry does not copy the states of the current entry; it keeps back-pointers to the current entry and to the
+     * added entry, so the states form a persistent list shared by all entries extending the same entry, and every
+     * completion allocates a constant amount of memory.
+     * @param rule Rule of the entry.
+     * @param from Origin of the entry.
+     * @param to End of the entry.
+     * @param dotPlace Dot place of the entry.
+     * @param current Entry whose dot is moved.
+     * @param added Completed entry spanning the words the dot is moved over.
+     */
     public ChartEntry(Rule rule, int from, int to, int dotPlace, ChartEntry current, ChartEntry added){
         this.rule = rule;
         this.from = from;
         this.to = to;
         this.dotPlace = dotPlace;
-        states = new ArrayList<>();
-        states.addAll(current.states);
-        states.add(added);
+        this.previous = current;
+        this.added = added;
     }
 
     public ChartEntry(ProbabilisticRule rule, int from, int to, int dotPlace, ChartEntry current, ChartEntry added){
         this((Rule) rule, from, to, dotPlace, current, added);
-        this.probability = current.probability * added.probability;
+        this.logProbability = current.logProbability + added.logProbability;
     }
 
+    /**
+     * Returns the completed entries the dot of this entry has moved over, in the order of the right hand side. The
+     * list is rebuilt from the back-pointers on each call.
+     * @return States of the entry.
+     */
     public ArrayList<ChartEntry> getStates(){
-        return states;
+        int count = 0;
+        for (ChartEntry entry = this; entry.previous != null; entry = entry.previous){
+            count++;
+        }
+        ChartEntry[] states = new ChartEntry[count];
+        for (ChartEntry entry = this; entry.previous != null; entry = entry.previous){
+            states[--count] = entry.added;
+        }
+        return new ArrayList<>(Arrays.asList(states));
+    }
+
+    /**
+     * Checks if this entry and the given entry have the same states, without building the state lists. The
+     * back-pointers are followed together, and the comparison stops as soon as both entries reach the same
+     * predecessor, since the remaining states are then shared.
+     * @param chartEntry Entry to be compared.
+     * @return True, if both entries have the same states; false otherwise.
+     */
+    public boolean hasSameStates(ChartEntry chartEntry){
+        ChartEntry first = this, second = chartEntry;
+        while (first != second){
+            if (first.previous == null || second.previous == null){
+                return first.previous == second.previous;
+            }
+            if (first.added != second.added){
+                return false;
+            }
+            first = first.previous;
+            second = second.previous;
+        }
+        return true;
     }
 
+    /**
+     * Checks if this entry and the given entry are the same dotted rule over the same span, that is if they have the
+     * same rule, origin, end and dot place. The fields are compared directly, so the check allocates nothing.
+     * @param chartEntry Entry to be compared.
+     * @return True, if both entries are the same dotted rule over the same span; false otherwise.
+     */
+    public boolean hasSameItem(ChartEntry chartEntry){
+        return dotPlace == chartEntry.dotPlace && from == chartEntry.from && to == chartEntry.to && rule.equals(chartEntry.rule);
+    }
+
+    /**
+     * Returns the probability of the entry, that is the product of the probabilities of the rules used in the entry.
+     * The product underflows for long sentences, therefore entries should be compared with getLogProbability.
+     * @return Probability of the entry.
+     */
     public double getProbability(){
-        return probability;
+        return Math.exp(logProbability);
+    }
+
+    /**
+     * Accessor for the logProbability attribute, the sum of the log probabilities of the rules used in the entry.
+     * @return Log probability of the entry.
+     */
+    public double getLogProbability(){
+        return logProbability;
     }
 
     public ParseNode constructParseNode(){
         ParseNode node;
-        if (states.isEmpty()){
+        if (previous == null){
             node = new ParseNode(new ParseNode(rule.getRightHandSideAt(0)), rule.getLeftHandSide());
         } else {
             node = new ParseNode(rule.getLeftHandSide());
-            for (ChartEntry state:states){
+            for (ChartEntry state:getStates()){
                 node.addChild(state.constructParseNode());
             }
         }
         return node;
     }
 
+    public int getIndex(){
+        return index;
+    }
+
+    void setIndex(int index){
+        this.index = index;
+    }
+
+    /**
+     * Accessor for the position of the entry in the next category bucket of its chart.
+     * @return Position of the entry among the entries with the same next category, -1 if the entry is not indexed.
+     */
+    int getNextCategoryPosition(){
+        return nextCategoryPosition;
+    }
+
+    void setNextCategoryPosition(int nextCategoryPosition){
+        this.nextCategoryPosition = nextCategoryPosition;
+    }
+
     public Rule getRule(){
         return rule;
     }
@@ -118,7 +212,7 @@ public class ChartEntry{
 
     public String toStringExtended(){
         StringBuilder result = new StringBuilder(toString());
-        for (ChartEntry state: states){
+        for (ChartEntry state: getStates()){
             result.append(state.toStringExtended());
         }
         return result.toString();
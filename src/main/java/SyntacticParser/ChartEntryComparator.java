@@ -3,6 +3,7 @@ package SyntacticParser;
 import ContextFreeGrammar.Rule;
 import ContextFreeGrammar.RuleComparator;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 
 public class ChartEntryComparator implements Comparator<ChartEntry> {
@@ -11,8 +12,9 @@ public class ChartEntryComparator implements Comparator<ChartEntry> {
         if (entryA.getRule().equals(entryB.getRule())){
             if (entryA.from() == entryB.from()){
                 if (entryA.dotPlace() == entryB.dotPlace()){
+                    ArrayList<ChartEntry> statesB = entryB.getStates();
                     for (ChartEntry state:entryA.getStates()){
-                        if (!entryB.getStates().contains(state)){
+                        if (!statesB.contains(state)){
                             return -1;
                         }
                     }
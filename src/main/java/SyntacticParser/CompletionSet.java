@@ -0,0 +1,89 @@
+package SyntacticParser;
+
+import java.util.Arrays;
+
+public class CompletionSet {
+
+    private long[] keys;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructor for the CompletionSet class. The set is an open addressing hash table of the completions done by
+     * the completer of an Earley parser in a single chart column. A completion of the entry A with the complete entry
+     * B is identified by {@link #completionKey(ChartEntry, ChartEntry)}, so no strings are constructed for the check.
+     */
+    public CompletionSet(){
+        keys = new long[16];
+        Arrays.fill(keys, -1);
+        mask = keys.length - 1;
+        size = 0;
+    }
+
+    /**
+     * Packs the identity of the completion of the entry A with the complete entry B into a single long. The entries of
+     * a chart column are unique with respect to their rule, origin, dot place and back-pointers, and the index of an
+     * entry in its column stands for all of them. Since A is in the column where B starts, the indexes of A and B
+     * identify the completion in the column of B.
+     * @param A Entry waiting for the left hand side of B.
+     * @param B Complete entry.
+     * @return Packed key of the completion.
+     */
+    public static long completionKey(ChartEntry A, ChartEntry B){
+        return ((long) B.getIndex() << 32) | (A.getIndex() & 0xffffffffL);
+    }
+
+    /**
+     * Returns the slot of the given key, or the empty slot where the key should be inserted.
+     * @param key Packed completion key.
+     * @return Slot of the key in the table.
+     */
+    private int find(long key){
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int position = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[position] != -1 && keys[position] != key){
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Checks if the given completion key is in the set.
+     * @param key Packed completion key.
+     * @return True, if the key is in the set; false otherwise.
+     */
+    public boolean contains(long key){
+        return keys[find(key)] != -1;
+    }
+
+    /**
+     * Adds the given completion key to the set. The table is doubled when it is half full.
+     * @param key Packed completion key.
+     */
+    public void add(long key){
+        int position = find(key);
+        if (keys[position] == -1){
+            keys[position] = key;
+            size++;
+            if (2 * size > keys.length){
+                long[] oldKeys = keys;
+                keys = new long[2 * oldKeys.length];
+                Arrays.fill(keys, -1);
+                mask = keys.length - 1;
+                for (long oldKey : oldKeys){
+                    if (oldKey != -1){
+                        keys[find(oldKey)] = oldKey;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns number of completions in the set.
+     * @return Number of completions.
+     */
+    public int size(){
+        return size;
+    }
+}
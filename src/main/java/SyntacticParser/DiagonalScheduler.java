@@ -0,0 +1,68 @@
+package SyntacticParser;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class DiagonalScheduler {
+
+    public interface CellFiller {
+
+        /**
+         * Fills the cell spanning the words from position i to position j. All cells spanning fewer words are already
+         * filled when this method is called.
+         * @param i Position of the first word.
+         * @param j Position of the last word.
+         */
+        void fill(int i, int j);
+    }
+
+    private static class DiagonalTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final CellFiller filler;
+        private final int length;
+        private final int from;
+        private final int to;
+
+        private DiagonalTask(CellFiller filler, int length, int from, int to){
+            this.filler = filler;
+            this.length = length;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute(){
+            if (to - from == 1){
+                filler.fill(from, from + length);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DiagonalTask(filler, length, from, middle), new DiagonalTask(filler, length, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Fills the cells of a CYK table for a sentence with the given number of words, except the cells spanning a single
+     * word. Without a pool, the cells are filled sequentially in the usual order. With a pool, the cells are filled
+     * diagonal by diagonal: all cells spanning the same number of words are independent of each other, therefore they
+     * are filled concurrently in the pool, and the next diagonal starts when the previous one is complete. Since each
+     * cell is filled by a single thread in the same order, the contents of the table are identical in both cases.
+     * @param wordCount Number of words in the sentence.
+     * @param pool Fork join pool in which the cells are filled, null for sequential filling.
+     * @param filler Method filling a single cell.
+     */
+    public static void fill(int wordCount, ForkJoinPool pool, CellFiller filler){
+        int i, j, length;
+        if (pool == null){
+            for (j = 1; j < wordCount; j++){
+                for (i = j - 1; i >= 0; i--){
+                    filler.fill(i, j);
+                }
+            }
+        } else {
+            for (length = 1; length < wordCount; length++){
+                pool.invoke(new DiagonalTask(filler, length, 0, wordCount - length));
+            }
+        }
+    }
+}
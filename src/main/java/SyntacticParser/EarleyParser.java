@@ -5,61 +5,77 @@ import Corpus.Sentence;
 import Dictionary.Word;
 import ParseTree.*;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
 
 public class EarleyParser implements SyntacticParser {
 
-    private ArrayList[] predictedList;
-    private Map<String, Integer> completedList;
+    private ParserListener listener = ParserListener.NO_OP;
 
-    private void predictor(ContextFreeGrammar cfg, Chart[] chart, ChartEntry chartEntry){
-        Symbol B;
-        ArrayList<Rule> candidates;
-        B = chartEntry.getNextCategory();
-        if (!predictedList[chartEntry.to()].contains(B)){
-            candidates = cfg.getRulesWithLeftSideX(B);
-            for (Rule candidate: candidates){
-                if (candidate.getRightHandSideSize() + chartEntry.to() < chart.length){
-                    chart[chartEntry.to()].addChartEntry(new ChartEntry(candidate, chartEntry.to(), chartEntry.to(), 0));
+    /**
+     * Sets the listener notified of the chart columns, the phases and the sentences parsed by this parser.
+     * @param listener Parser listener, {@link ParserListener#NO_OP} to disable instrumentation.
+     */
+    public void setListener(ParserListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Accessor for the listener attribute.
+     * @return Parser listener of this parser.
+     */
+    public ParserListener getListener(){
+        return listener;
+    }
+
+    private int predictor(CompiledGrammar grammar, Chart[] chart, BitSet[] predicted, ChartEntry chartEntry){
+        int B;
+        int[] candidates;
+        B = grammar.getSymbolId(chartEntry.getNextCategory());
+        if (B >= 0 && !predicted[chartEntry.to()].get(B)){
+            candidates = grammar.getPredictionClosure(B);
+            for (int candidate: candidates){
+                if (!predicted[chartEntry.to()].get(grammar.getLeftHandSide(candidate)) && grammar.getRightHandSideSize(candidate) + chartEntry.to() < chart.length){
+                    chart[chartEntry.to()].addChartEntry(new ChartEntry(grammar.getRule(candidate), chartEntry.to(), chartEntry.to(), 0));
                 }
             }
-            predictedList[chartEntry.to()].add(B);
+            for (int symbol: grammar.getPredictedSymbols(B)){
+                predicted[chartEntry.to()].set(symbol);
+            }
+            predicted[chartEntry.to()].set(B);
+            return candidates.length;
         }
+        return 0;
     }
 
-    private void scanner(ContextFreeGrammar cfg, Sentence sentence, Chart[] chart, ChartEntry chartEntry){
-        Symbol B, W;
+    private int scanner(CompiledGrammar grammar, Sentence sentence, Chart[] chart, ChartEntry chartEntry){
+        int B, candidate;
         Word word;
-        ArrayList<Rule> candidates;
-        B = chartEntry.getNextCategory();
+        B = grammar.getSymbolId(chartEntry.getNextCategory());
         if (chartEntry.to() == sentence.wordCount())
-            return;
+            return 0;
         word = sentence.getWord(chartEntry.to());
-        W = new Symbol(word.getName());
-        candidates = cfg.getTerminalRulesWithRightSideX(W);
-        for (Rule candidate:candidates){
-            if (candidate.getLeftHandSide().equals(B)){
-                chart[chartEntry.to() + 1].addChartEntry(new ChartEntry(candidate, chartEntry.to(), chartEntry.to() + 1, 1));
-                break;
-            }
+        candidate = grammar.getLexicon().getRule(B, grammar.getSymbolId(word.getName()));
+        if (candidate != -1){
+            chart[chartEntry.to() + 1].addChartEntry(new ChartEntry(grammar.getRule(candidate), chartEntry.to(), chartEntry.to() + 1, 1));
         }
+        return 1;
     }
 
-    private void completer(Chart[] chart, ChartEntry chartEntry){
-        Symbol B;
+    private void completer(CompiledGrammar grammar, Chart[] chart, CompletionSet completedList, ChartEntry chartEntry){
+        int B;
         ChartEntry newEntry;
         ArrayList<ChartEntry> candidates;
-        B = chartEntry.getRule().getLeftHandSide();
+        B = grammar.getSymbolId(chartEntry.getRule().getLeftHandSide());
         candidates = chart[chartEntry.from()].getNextCategoryX(B);
         for (ChartEntry A: candidates){
             if (A.getRule().getRightHandSideSize() - A.dotPlace() - 1 + chartEntry.to() < chart.length){
-                if (!completedList.containsKey(A.toStringExtended() + chartEntry.toStringExtended())){
+                if (!completedList.contains(CompletionSet.completionKey(A, chartEntry))){
                     newEntry = new ChartEntry(A.getRule(), A.from(), chartEntry.to(), A.dotPlace() + 1, A, chartEntry);
-                    if (!newEntry.toString().equals(chartEntry.toString())){
+                    if (!newEntry.hasSameItem(chartEntry)){
                         chart[chartEntry.to()].addChartEntry(newEntry);
-                        completedList.put(A.toStringExtended() + chartEntry.toStringExtended(), A.dotPlace());
+                        completedList.add(CompletionSet.completionKey(A, chartEntry));
                     }
                 }
             }
@@ -67,53 +83,89 @@ public class EarleyParser implements SyntacticParser {
     }
 
     public Chart[] constructChart(ContextFreeGrammar cfg, Sentence sentence) {
-        int i, j;
-        long start, end;
+        int i, j, predictorCalls, scannerCalls, completerCalls, ruleLookups;
+        long start, columnStart;
         Chart[] chart;
-        ArrayList<Rule> initialRules;
-        ArrayList<Symbol> posTags;
+        int[] initialRules;
+        CompiledGrammar grammar = cfg.compile();
         ChartEntry chartEntry;
+        BitSet[] predicted;
+        CompletionSet completedList;
+        start = System.nanoTime();
         chart = new Chart[sentence.wordCount() + 1];
-        predictedList = new ArrayList[sentence.wordCount() + 1];
+        predicted = new BitSet[sentence.wordCount() + 1];
         for (i = 0; i < sentence.wordCount() + 1; i++){
-            chart[i] = new Chart();
-            predictedList[i] = new ArrayList<Symbol>();
+            chart[i] = new Chart(grammar);
+            predicted[i] = new BitSet(grammar.getNonTerminalCount());
         }
-        initialRules = cfg.getRulesWithLeftSideX(new Symbol("S"));
-        for (Rule rule:initialRules){
-            chart[0].addChartEntry(new ChartEntry(rule, 0, 0, 0));
+        initialRules = grammar.getRulesWithLeftSideX(grammar.getSymbolId("S"));
+        for (int rule:initialRules){
+            chart[0].addChartEntry(new ChartEntry(grammar.getRule(rule), 0, 0, 0));
         }
-        posTags = cfg.partOfSpeechTags();
         for (i = 0; i <= sentence.wordCount(); i++){
-            start = System.currentTimeMillis();
-            completedList = new HashMap<>();
+            columnStart = System.nanoTime();
+            predictorCalls = 0;
+            scannerCalls = 0;
+            completerCalls = 0;
+            ruleLookups = 0;
+            completedList = new CompletionSet();
             for (j = 0; j < chart[i].size(); j++){
                 chartEntry = chart[i].getEntry(j);
                 if (!chartEntry.isComplete()){
-                    if (!chartEntry.nextCategoryPartOfSpeech(posTags)){
-                        predictor(cfg, chart, chartEntry);
+                    if (!grammar.isPartOfSpeechTag(grammar.getSymbolId(chartEntry.getNextCategory()))){
+                        ruleLookups += predictor(grammar, chart, predicted, chartEntry);
+                        predictorCalls++;
                     } else {
-                        scanner(cfg, sentence, chart, chartEntry);
+                        ruleLookups += scanner(grammar, sentence, chart, chartEntry);
+                        scannerCalls++;
                     }
                 } else {
-                    completer(chart, chartEntry);
+                    completer(grammar, chart, completedList, chartEntry);
+                    completerCalls++;
                 }
             }
-            end = System.currentTimeMillis();
-            System.out.println("Word " + i + " completed in " + (end - start) + " milliseconds");
+            listener.columnCompleted(i, chart[i].size(), predictorCalls, scannerCalls, completerCalls, ruleLookups, System.nanoTime() - columnStart);
         }
+        listener.phaseCompleted(ParserPhase.CHART, System.nanoTime() - start);
         return chart;
     }
 
+    /**
+     * Constructs the packed parse forest of the given sentence from the Earley chart. The trees can be counted with
+     * {@link ParseForest#countDerivations()} and constructed one at a time by iterating over the forest, so the
+     * parser holds no trees however ambiguous the sentence is. The forest contains the trees returned by
+     * {@link #parse(ContextFreeGrammar, Sentence)}; if the grammar is in Chomsky Normal Form, the X nodes are also
+     * removed from them.
+     * @param cfg Context free grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     * @return Packed parse forest of the sentence.
+     */
+    public ParseForest parseForest(ContextFreeGrammar cfg, Sentence sentence){
+        ParseForest forest;
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
+        Chart[] chart = constructChart(cfg, sentence);
+        treeStart = System.nanoTime();
+        forest = new ParseForest(chart, cfg.compile(), sentence);
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, forest.countDerivations().min(BigInteger.valueOf(Integer.MAX_VALUE)).intValue(), System.nanoTime() - start);
+        return forest;
+    }
+
     public ArrayList<ParseTree> parse(ContextFreeGrammar cfg, Sentence sentence){
         ArrayList<ParseTree> parseTrees;
         ArrayList<ChartEntry> entries;
+        long start = System.nanoTime(), treeStart;
+        listener.parseStarted(sentence);
         Chart[] chart = constructChart(cfg, sentence);
+        treeStart = System.nanoTime();
         parseTrees = new ArrayList<>();
         entries = chart[sentence.wordCount()].getSentenceChartEntries(sentence.wordCount());
         for (ChartEntry entry: entries){
             parseTrees.add(new ParseTree(entry.constructParseNode()));
         }
+        listener.phaseCompleted(ParserPhase.TREE_CONSTRUCTION, System.nanoTime() - treeStart);
+        listener.parseCompleted(sentence, parseTrees.size(), System.nanoTime() - start);
         return parseTrees;
     }
 }
@@ -0,0 +1,108 @@
+package SyntacticParser;
+
+import java.util.Arrays;
+
+public class PackedCell {
+
+    private final long[] symbols;
+    private int[] backPointers;
+    private int backPointerCount;
+    private int[] symbolIds = null;
+
+    /**
+     * Constructor for the PackedCell class. A packed cell stores the set of non-terminals spanning a substring of the
+     * sentence as a bit vector, together with the back-pointers explaining how each non-terminal was derived. The
+     * memory of the set is bounded by the number of non-terminals in the grammar, not by the number of derivations.
+     * @param nonTerminalCount Number of non-terminal symbols in the grammar.
+     */
+    public PackedCell(int nonTerminalCount){
+        symbols = new long[(nonTerminalCount + 63) >> 6];
+        backPointers = new int[12];
+        backPointerCount = 0;
+    }
+
+    /**
+     * Checks if the non-terminal with the given id spans this cell.
+     * @param symbolId Id of the non-terminal.
+     * @return True, if the non-terminal is in the cell; false otherwise.
+     */
+    public boolean contains(int symbolId){
+        return symbolId >= 0 && (symbolId >> 6) < symbols.length && (symbols[symbolId >> 6] & (1L << symbolId)) != 0;
+    }
+
+    /**
+     * Adds a derivation of the non-terminal with the given id to the cell. For a rule X -&gt;  YZ, split is the position
+     * of the last word spanned by Y; for a terminal rule X -&gt;  a, split is -1.
+     * @param symbolId Id of the non-terminal X.
+     * @param ruleId Id of the rule used in the derivation.
+     * @param split Split point of the derivation.
+     */
+    public void add(int symbolId, int ruleId, int split){
+        symbols[symbolId >> 6] |= 1L << symbolId;
+        if (3 * backPointerCount + 3 > backPointers.length){
+            backPointers = Arrays.copyOf(backPointers, 2 * backPointers.length);
+        }
+        backPointers[3 * backPointerCount] = symbolId;
+        backPointers[3 * backPointerCount + 1] = ruleId;
+        backPointers[3 * backPointerCount + 2] = split;
+        backPointerCount++;
+        symbolIds = null;
+    }
+
+    /**
+     * Returns the ids of the non-terminals in the cell in increasing order.
+     * @return Ids of the non-terminals in the cell.
+     */
+    public int[] getSymbolIds(){
+        int count = 0, index = 0;
+        if (symbolIds == null){
+            for (long word : symbols){
+                count += Long.bitCount(word);
+            }
+            symbolIds = new int[count];
+            for (int i = 0; i < symbols.length; i++){
+                long word = symbols[i];
+                while (word != 0){
+                    symbolIds[index++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+        return symbolIds;
+    }
+
+    /**
+     * Returns number of back-pointers, that is number of derivations stored in the cell.
+     * @return Number of back-pointers.
+     */
+    public int backPointerCount(){
+        return backPointerCount;
+    }
+
+    /**
+     * Returns the id of the non-terminal derived by the back-pointer at the given position.
+     * @param index Position of the back-pointer.
+     * @return Id of the derived non-terminal.
+     */
+    public int getBackPointerSymbol(int index){
+        return backPointers[3 * index];
+    }
+
+    /**
+     * Returns the id of the rule used by the back-pointer at the given position.
+     * @param index Position of the back-pointer.
+     * @return Id of the rule.
+     */
+    public int getBackPointerRule(int index){
+        return backPointers[3 * index + 1];
+    }
+
+    /**
+     * Returns the split point of the back-pointer at the given position.
+     * @param index Position of the back-pointer.
+     * @return Position of the last word spanned by the first child, -1 for terminal rules.
+     */
+    public int getBackPointerSplit(int index){
+        return backPointers[3 * index + 2];
+    }
+}
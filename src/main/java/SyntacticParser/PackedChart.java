@@ -0,0 +1,158 @@
+package SyntacticParser;
+
+import ContextFreeGrammar.CompiledGrammar;
+import Corpus.Sentence;
+import ParseTree.ParseNode;
+import ParseTree.ParseTree;
+import ParseTree.Symbol;
+
+import java.util.ArrayList;
+
+public class PackedChart {
+
+    private final CompiledGrammar grammar;
+    private final Sentence sentence;
+    private final PackedCell[][] cells;
+
+    /**
+     * Constructor for the PackedChart class. Creates an empty cell for every substring of the sentence.
+     * @param grammar Compiled grammar used in parsing.
+     * @param sentence Sentence to be parsed.
+     */
+    public PackedChart(CompiledGrammar grammar, Sentence sentence){
+        this.grammar = grammar;
+        this.sentence = sentence;
+        cells = new PackedCell[sentence.wordCount()][sentence.wordCount()];
+        for (int i = 0; i < sentence.wordCount(); i++){
+            for (int j = i; j < sentence.wordCount(); j++){
+                cells[i][j] = new PackedCell(grammar.getNonTerminalCount());
+            }
+        }
+    }
+
+    /**
+     * Accessor for the cell spanning the words from position i to position j.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @return Cell spanning the words from i to j.
+     */
+    public PackedCell getCell(int i, int j){
+        return cells[i][j];
+    }
+
+    /**
+     * Accessor for the compiled grammar.
+     * @return Compiled grammar.
+     */
+    public CompiledGrammar getGrammar(){
+        return grammar;
+    }
+
+    /**
+     * Accessor for the sentence.
+     * @return Sentence parsed into the chart.
+     */
+    public Sentence getSentence(){
+        return sentence;
+    }
+
+    /**
+     * Returns number of words in the sentence.
+     * @return Number of words in the sentence.
+     */
+    public int wordCount(){
+        return sentence.wordCount();
+    }
+
+    /**
+     * Checks if the given symbol spans the words from position i to position j.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param symbol Non-terminal symbol.
+     * @return True, if the symbol spans the words from i to j; false otherwise.
+     */
+    public boolean contains(int i, int j, Symbol symbol){
+        return cells[i][j].contains(grammar.getSymbolId(symbol));
+    }
+
+    /**
+     * Checks if the sentence is recognized by the grammar, that is the start symbol S spans the whole sentence.
+     * @return True, if the sentence is recognized; false otherwise.
+     */
+    public boolean isRecognized(){
+        return wordCount() > 0 && contains(0, wordCount() - 1, new Symbol("S"));
+    }
+
+    /**
+     * Recursively constructs the subtrees of the given non-terminal spanning the words from position i to position j
+     * by following the back-pointers of the cells. At most limit subtrees are constructed.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param symbolId Id of the non-terminal at the root of the subtrees.
+     * @param limit Maximum number of subtrees to be constructed.
+     * @return Subtrees of the given non-terminal spanning the words from i to j.
+     */
+    private ArrayList<ParseNode> constructParseNodes(int i, int j, int symbolId, int limit){
+        ArrayList<ParseNode> result = new ArrayList<>();
+        PackedCell cell = cells[i][j];
+        Symbol symbol = grammar.getSymbol(symbolId);
+        for (int index = 0; index < cell.backPointerCount() && result.size() < limit; index++){
+            if (cell.getBackPointerSymbol(index) != symbolId){
+                continue;
+            }
+            int rule = cell.getBackPointerRule(index);
+            int split = cell.getBackPointerSplit(index);
+            if (split == -1){
+                result.add(new ParseNode(new ParseNode(new Symbol(sentence.getWord(i).getName())), symbol));
+            } else {
+                ArrayList<ParseNode> leftNodes = constructParseNodes(i, split, grammar.getRightHandSideAt(rule, 0), limit);
+                for (ParseNode leftNode : leftNodes){
+                    ArrayList<ParseNode> rightNodes = constructParseNodes(split + 1, j, grammar.getRightHandSideAt(rule, 1), limit - result.size());
+                    for (ParseNode rightNode : rightNodes){
+                        result.add(new ParseNode(leftNode, rightNode, symbol));
+                    }
+                    if (result.size() >= limit){
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Constructs one parse tree of the given non-terminal spanning the words from position i to position j.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param symbol Non-terminal symbol at the root of the tree.
+     * @return Root of the parse tree, null if the symbol does not span the words from i to j.
+     */
+    public ParseNode constructParseNode(int i, int j, Symbol symbol){
+        int symbolId = grammar.getSymbolId(symbol);
+        if (!cells[i][j].contains(symbolId)){
+            return null;
+        }
+        return constructParseNodes(i, j, symbolId, 1).get(0);
+    }
+
+    /**
+     * Constructs at most maxCount parse trees with the start symbol S spanning the whole sentence. Only the requested
+     * trees are built, the chart itself stores no trees. The X nodes introduced in the conversion to Chomsky Normal
+     * Form are removed from the trees.
+     * @param maxCount Maximum number of parse trees to be constructed.
+     * @return Parse trees of the sentence.
+     */
+    public ArrayList<ParseTree> getParseTrees(int maxCount){
+        ArrayList<ParseTree> parseTrees = new ArrayList<>();
+        if (!isRecognized()){
+            return parseTrees;
+        }
+        for (ParseNode node : constructParseNodes(0, wordCount() - 1, grammar.getSymbolId("S"), maxCount)){
+            ParseTree parseTree = new ParseTree(node);
+            parseTree.correctParents();
+            parseTree.removeXNodes();
+            parseTrees.add(parseTree);
+        }
+        return parseTrees;
+    }
+}
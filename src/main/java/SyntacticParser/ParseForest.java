@@ -0,0 +1,467 @@
+package SyntacticParser;
+
+import ContextFreeGrammar.CompiledGrammar;
+import Corpus.Sentence;
+import ParseTree.ParseNode;
+import ParseTree.ParseTree;
+import ParseTree.Symbol;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class ParseForest implements Iterable<ParseTree> {
+
+    private static final class OrNode {
+
+        private final Symbol symbol;
+        private final ArrayList<AndNode> alternatives = new ArrayList<>();
+        private BigInteger count = null;
+        private int component = -1;
+        private Set<OrNode> childAncestors = null;
+
+        private OrNode(Symbol symbol){
+            this.symbol = symbol;
+        }
+    }
+
+    private static final class AndNode {
+
+        private final int position;
+        private final OrNode[] children;
+
+        private AndNode(int position, OrNode[] children){
+            this.position = position;
+            this.children = children;
+        }
+    }
+
+    private static final class AlternativeKey {
+
+        private final int[] values;
+        private final int hash;
+
+        private AlternativeKey(int[] values){
+            this.values = values;
+            hash = Arrays.hashCode(values);
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof AlternativeKey)){
+                return false;
+            }
+            AlternativeKey key = (AlternativeKey) aThat;
+            return hash == key.hash && Arrays.equals(values, key.values);
+        }
+
+        public int hashCode(){
+            return hash;
+        }
+    }
+
+    private static final class CountKey {
+
+        private final OrNode node;
+        private final Set<OrNode> ancestors;
+
+        private CountKey(OrNode node, Set<OrNode> ancestors){
+            this.node = node;
+            this.ancestors = ancestors;
+        }
+
+        public boolean equals(Object aThat){
+            if (!(aThat instanceof CountKey)){
+                return false;
+            }
+            CountKey key = (CountKey) aThat;
+            return node == key.node && ancestors.equals(key.ancestors);
+        }
+
+        public int hashCode(){
+            return System.identityHashCode(node) * 31 + ancestors.hashCode();
+        }
+    }
+
+    private final Sentence sentence;
+    private final HashMap<Long, OrNode> nodes = new HashMap<>();
+    private final HashMap<CountKey, BigInteger> cyclicCounts = new HashMap<>();
+    private final OrNode root;
+    private final int wordCount;
+    private int componentCount = 0;
+
+    /**
+     * Constructor for the ParseForest class. Constructs the packed forest of a packed CYK chart. There is an or node
+     * for every non-terminal spanning a substring of the sentence and reachable from the S entry spanning the whole
+     * sentence, and an and node for every back-pointer of that non-terminal, so the size of the forest is bounded by
+     * the size of the chart, not by the number of parse trees.
+     * @param chart Packed chart of the sentence.
+     * @param sentence Original sentence before normalization, its words are the leaves of the trees.
+     */
+    public ParseForest(PackedChart chart, Sentence sentence){
+        this.sentence = sentence;
+        wordCount = chart.wordCount();
+        if (chart.isRecognized()){
+            root = packedNode(chart, chart.getGrammar().getSymbolId("S"), 0, wordCount - 1);
+            connect(root, new HashMap<>(), new ArrayList<>());
+        } else {
+            root = null;
+        }
+    }
+
+    /**
+     * Another constructor for the ParseForest class. Constructs the packed forest of an Earley chart. There is an or
+     * node for every non-terminal completed over a substring of the sentence and reachable from the complete S
+     * entries spanning the whole sentence. Complete entries with the same rule and the same child spans differ only
+     * in the derivations of their children, which are already packed in the child or nodes, so they form a single
+     * and node.
+     * @param chart Earley chart of the sentence, one column per position.
+     * @param grammar Compiled grammar used in parsing.
+     * @param sentence Sentence parsed.
+     */
+    public ParseForest(Chart[] chart, CompiledGrammar grammar, Sentence sentence){
+        ChartEntry entry;
+        HashMap<Long, ArrayList<ChartEntry>> completed = new HashMap<>();
+        this.sentence = sentence;
+        wordCount = sentence.wordCount();
+        for (int to = 0; to < chart.length; to++){
+            for (int i = 0; i < chart[to].size(); i++){
+                entry = chart[to].getEntry(i);
+                if (entry.isComplete()){
+                    completed.computeIfAbsent(key(grammar.getSymbolId(entry.getRule().getLeftHandSide()), entry.from(), to), k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        if (completed.containsKey(key(grammar.getSymbolId("S"), 0, wordCount))){
+            root = earleyNode(grammar, completed, grammar.getSymbolId("S"), 0, wordCount);
+            connect(root, new HashMap<>(), new ArrayList<>());
+        } else {
+            root = null;
+        }
+    }
+
+    /**
+     * Packs a non-terminal and the span of a node into a single key.
+     * @param symbolId Id of the non-terminal.
+     * @param from Start of the span.
+     * @param to End of the span.
+     * @return Key of the node.
+     */
+    private long key(int symbolId, int from, int to){
+        return ((long) symbolId * (wordCount + 1) + from) * (wordCount + 1) + to;
+    }
+
+    /**
+     * Returns the or node of the given non-terminal spanning the words from position i to position j of a packed
+     * chart, constructing it and the nodes below it on the first request.
+     * @param chart Packed chart of the sentence.
+     * @param symbolId Id of the non-terminal.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @return Or node of the non-terminal.
+     */
+    private OrNode packedNode(PackedChart chart, int symbolId, int i, int j){
+        CompiledGrammar grammar = chart.getGrammar();
+        PackedCell cell = chart.getCell(i, j);
+        OrNode node = nodes.get(key(symbolId, i, j));
+        if (node != null){
+            return node;
+        }
+        node = new OrNode(grammar.getSymbol(symbolId));
+        nodes.put(key(symbolId, i, j), node);
+        for (int index = 0; index < cell.backPointerCount(); index++){
+            if (cell.getBackPointerSymbol(index) == symbolId){
+                int rule = cell.getBackPointerRule(index);
+                int split = cell.getBackPointerSplit(index);
+                if (split == -1){
+                    node.alternatives.add(new AndNode(i, null));
+                } else {
+                    node.alternatives.add(new AndNode(-1, new OrNode[]{packedNode(chart, grammar.getRightHandSideAt(rule, 0), i, split),
+                            packedNode(chart, grammar.getRightHandSideAt(rule, 1), split + 1, j)}));
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the or node of the given non-terminal completed from position from to position to of an Earley chart,
+     * constructing it and the nodes below it on the first request. Entries with the same rule and the same end
+     * positions of their children are packed into a single alternative; they are compared by the compiled rule id and
+     * the end positions, without building strings.
+     * @param grammar Compiled grammar used in parsing.
+     * @param completed Complete entries of the chart by their left hand sides and spans.
+     * @param symbolId Id of the non-terminal.
+     * @param from Start of the span.
+     * @param to End of the span.
+     * @return Or node of the non-terminal.
+     */
+    private OrNode earleyNode(CompiledGrammar grammar, HashMap<Long, ArrayList<ChartEntry>> completed, int symbolId, int from, int to){
+        ArrayList<ChartEntry> states;
+        OrNode[] children;
+        int[] signature;
+        HashSet<AlternativeKey> packed = new HashSet<>();
+        OrNode node = nodes.get(key(symbolId, from, to));
+        if (node != null){
+            return node;
+        }
+        node = new OrNode(grammar.getSymbol(symbolId));
+        nodes.put(key(symbolId, from, to), node);
+        for (ChartEntry entry : completed.get(key(symbolId, from, to))){
+            states = entry.getStates();
+            signature = new int[states.size() + 1];
+            signature[0] = grammar.getRuleId(entry.getRule());
+            for (int i = 0; i < states.size(); i++){
+                signature[i + 1] = states.get(i).to();
+            }
+            if (!packed.add(new AlternativeKey(signature))){
+                continue;
+            }
+            if (states.isEmpty()){
+                node.alternatives.add(new AndNode(from, null));
+            } else {
+                children = new OrNode[states.size()];
+                for (int i = 0; i < states.size(); i++){
+                    children[i] = earleyNode(grammar, completed, grammar.getSymbolId(states.get(i).getRule().getLeftHandSide()), states.get(i).from(), states.get(i).to());
+                }
+                node.alternatives.add(new AndNode(-1, children));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Assigns the given or node and the or nodes below it to their strongly connected components with Tarjan's
+     * algorithm. The or nodes of a component with more than one node derive each other through unary cycles over the
+     * same span; a packed CYK forest has no such components.
+     * @param node Or node.
+     * @param lowLinks Visiting order of the nodes visited so far, replaced by the smallest visiting order reachable
+     *                 from each node.
+     * @param stack Nodes of the components not completed yet.
+     * @return Smallest visiting order reachable from the node.
+     */
+    private int connect(OrNode node, HashMap<OrNode, Integer> lowLinks, ArrayList<OrNode> stack){
+        int index = lowLinks.size(), lowLink = index;
+        OrNode member;
+        lowLinks.put(node, index);
+        stack.add(node);
+        for (AndNode alternative : node.alternatives){
+            if (alternative.children != null){
+                for (OrNode child : alternative.children){
+                    if (!lowLinks.containsKey(child)){
+                        lowLink = Math.min(lowLink, connect(child, lowLinks, stack));
+                    } else {
+                        if (child.component == -1){
+                            lowLink = Math.min(lowLink, lowLinks.get(child));
+                        }
+                    }
+                }
+            }
+        }
+        lowLinks.put(node, lowLink);
+        if (lowLink == index){
+            do {
+                member = stack.remove(stack.size() - 1);
+                member.component = componentCount;
+            } while (member != node);
+            componentCount++;
+        }
+        return lowLink;
+    }
+
+    /**
+     * Returns the ancestors with which the derivations of the given child of the given or node are counted. Only the
+     * ancestors in the component of the child can be reached again from the child, so the ancestors of a child in the
+     * same component as the node are the ancestors of the node and the node itself, and a child in another component
+     * has no relevant ancestors.
+     * @param node Or node.
+     * @param ancestors Ancestors of the or node in its component.
+     * @param child Child of an and node of the or node.
+     * @return Ancestors of the child.
+     */
+    private Set<OrNode> childAncestors(OrNode node, Set<OrNode> ancestors, OrNode child){
+        Set<OrNode> result;
+        if (child.component != node.component){
+            return Collections.emptySet();
+        }
+        if (ancestors.isEmpty()){
+            if (node.childAncestors == null){
+                node.childAncestors = Collections.singleton(node);
+            }
+            return node.childAncestors;
+        }
+        result = new HashSet<>(ancestors);
+        result.add(node);
+        return result;
+    }
+
+    /**
+     * Returns the number of derivations of the given and node of the given or node, that is the product of the
+     * numbers of derivations of its children, or zero if a child is the or node itself or one of its ancestors.
+     * @param node Or node.
+     * @param ancestors Ancestors of the or node in its component.
+     * @param alternative And node of the or node.
+     * @return Number of derivations of the and node.
+     */
+    private BigInteger count(OrNode node, Set<OrNode> ancestors, AndNode alternative){
+        BigInteger product = BigInteger.ONE;
+        if (alternative.children != null){
+            for (OrNode child : alternative.children){
+                if (child == node || ancestors.contains(child)){
+                    return BigInteger.ZERO;
+                }
+                product = product.multiply(count(child, childAncestors(node, ancestors, child)));
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Returns the number of derivations of the given or node in which no or node is derived from itself, that is the
+     * sum of the numbers of derivations of its and nodes. Derivations through a unary cycle are infinitely many and
+     * are not counted; the derivations of an or node in a unary cycle are counted separately for each set of
+     * ancestors in its component, so the numbers do not depend on the order in which the nodes are counted. The
+     * numbers are computed once and cached.
+     * @param node Or node.
+     * @param ancestors Ancestors of the or node in its component.
+     * @return Number of derivations of the node.
+     */
+    private BigInteger count(OrNode node, Set<OrNode> ancestors){
+        BigInteger result;
+        CountKey key = null;
+        if (ancestors.isEmpty()){
+            if (node.count != null){
+                return node.count;
+            }
+        } else {
+            key = new CountKey(node, ancestors);
+            result = cyclicCounts.get(key);
+            if (result != null){
+                return result;
+            }
+        }
+        result = BigInteger.ZERO;
+        for (AndNode alternative : node.alternatives){
+            result = result.add(count(node, ancestors, alternative));
+        }
+        if (key == null){
+            node.count = result;
+        } else {
+            cyclicCounts.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of parse trees in the forest without constructing any of them.
+     * @return Number of parse trees of the sentence.
+     */
+    public BigInteger countDerivations(){
+        if (root == null){
+            return BigInteger.ZERO;
+        }
+        return count(root, Collections.emptySet());
+    }
+
+    /**
+     * Returns number of or nodes in the forest, that is the number of distinct (non-terminal, span) pairs used in the
+     * parse trees.
+     * @return Number of or nodes in the forest.
+     */
+    public int nodeCount(){
+        return nodes.size();
+    }
+
+    /**
+     * Constructs the parse tree with the given index. The trees are ordered as the alternatives of the or nodes, the
+     * alternatives of the children on the right changing fastest, which is the order of the trees of the packed CYK
+     * parser. Only the requested tree is constructed: the index selects an and node of each or node on the path,
+     * using the cached numbers of derivations. The X nodes introduced in the conversion to Chomsky Normal Form are
+     * spliced into their parents while the tree is constructed, and the leaves are the words of the given sentence, so
+     * no _rare_ or _num_ symbol appears in the tree.
+     * @param index Index of the tree, between 0 and countDerivations() - 1.
+     * @return Parse tree with the given index.
+     */
+    public ParseTree getParseTree(BigInteger index){
+        if (index.signum() < 0 || index.compareTo(countDerivations()) >= 0){
+            throw new IndexOutOfBoundsException("Parse tree " + index + " does not exist");
+        }
+        ParseNode node = new ParseNode(root.symbol);
+        addChildren(node, root, Collections.emptySet(), index);
+        return new ParseTree(node);
+    }
+
+    /**
+     * Adds the children of the derivation with the given index of the given or node to the given parse node. The
+     * children of X nodes are added in place of the X nodes.
+     * @param parent Parse node of the or node, or the parse node of the nearest ancestor which is not an X node.
+     * @param node Or node.
+     * @param ancestors Ancestors of the or node in its component.
+     * @param index Index of the derivation of the or node.
+     */
+    private void addChildren(ParseNode parent, OrNode node, Set<OrNode> ancestors, BigInteger index){
+        BigInteger[] childIndexes;
+        BigInteger[] quotientAndRemainder;
+        BigInteger product;
+        ParseNode childNode;
+        OrNode child;
+        for (AndNode alternative : node.alternatives){
+            product = count(node, ancestors, alternative);
+            if (index.compareTo(product) >= 0){
+                index = index.subtract(product);
+                continue;
+            }
+            if (alternative.children == null){
+                parent.addChild(new ParseNode(new Symbol(sentence.getWord(alternative.position).getName())));
+                return;
+            }
+            childIndexes = new BigInteger[alternative.children.length];
+            for (int i = alternative.children.length - 1; i >= 0; i--){
+                quotientAndRemainder = index.divideAndRemainder(count(alternative.children[i], childAncestors(node, ancestors, alternative.children[i])));
+                childIndexes[i] = quotientAndRemainder[1];
+                index = quotientAndRemainder[0];
+            }
+            for (int i = 0; i < alternative.children.length; i++){
+                child = alternative.children[i];
+                if (child.symbol.getName().startsWith("X")){
+                    addChildren(parent, child, childAncestors(node, ancestors, child), childIndexes[i]);
+                } else {
+                    childNode = new ParseNode(child.symbol);
+                    addChildren(childNode, child, childAncestors(node, ancestors, child), childIndexes[i]);
+                    parent.addChild(childNode);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Returns an iterator over the parse trees of the forest in the order of {@link #getParseTree(BigInteger)}. Each
+     * tree is constructed when it is requested, so the trees can be streamed without holding them in memory.
+     * @return Iterator over the parse trees.
+     */
+    public Iterator<ParseTree> iterator(){
+        return new Iterator<ParseTree>() {
+
+            private BigInteger next = BigInteger.ZERO;
+
+            public boolean hasNext(){
+                return next.compareTo(countDerivations()) < 0;
+            }
+
+            public ParseTree next(){
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                ParseTree parseTree = getParseTree(next);
+                next = next.add(BigInteger.ONE);
+                return parseTree;
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package SyntacticParser;
+
+import Corpus.Sentence;
+
+public interface ParserListener {
+
+    ParserListener NO_OP = new ParserListener() {};
+
+    /**
+     * Called when the parser starts parsing the given sentence.
+     * @param sentence Sentence to be parsed.
+     */
+    default void parseStarted(Sentence sentence){
+    }
+
+    /**
+     * Called when a phase of parsing is completed. LEXICAL is the lookup of the words in the lexicon, CHART is
+     * filling the chart or the table, TREE_CONSTRUCTION is building the parse trees from the chart.
+     * @param phase Completed phase.
+     * @param nanoseconds Wall time of the phase in nanoseconds.
+     */
+    default void phaseCompleted(ParserPhase phase, long nanoseconds){
+    }
+
+    /**
+     * Called by the Earley parsers when a column of the chart is completed.
+     * @param column Index of the column.
+     * @param entryCount Number of chart entries in the column.
+     * @param predictorCalls Number of predictor calls in the column.
+     * @param scannerCalls Number of scanner calls in the column.
+     * @param completerCalls Number of completer calls in the column.
+     * @param ruleLookups Number of rules looked up in the grammar index while processing the column.
+     * @param nanoseconds Wall time of the column in nanoseconds.
+     */
+    default void columnCompleted(int column, int entryCount, int predictorCalls, int scannerCalls, int completerCalls, int ruleLookups, long nanoseconds){
+    }
+
+    /**
+     * Called by the CYK parsers when the cell spanning the words from position i to position j is filled. When the
+     * cells are filled in a fork join pool, this method is called concurrently from several threads.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param size Number of partial parses or non-terminals in the cell.
+     * @param ruleLookups Number of lookups in the grammar index while filling the cell.
+     */
+    default void cellCompleted(int i, int j, int size, int ruleLookups){
+    }
+
+    /**
+     * Called by the CYK parsers with beam pruning when the cell spanning the words from position i to position j is
+     * pruned, before the cell is reported as completed. The cell spanning the whole sentence is never pruned. When the
+     * cells are filled in a fork join pool, this method is called concurrently from several threads.
+     * @param i Position of the first word.
+     * @param j Position of the last word.
+     * @param kept Number of partial parses kept in the cell.
+     * @param pruned Number of partial parses removed from the cell.
+     */
+    default void cellPruned(int i, int j, int kept, int pruned){
+    }
+
+    /**
+     * Called by the best first parsers when the search of a sentence stops, either because the S edge spanning the
+     * sentence is popped or because the agenda is empty.
+     * @param pushed Number of edges pushed to the agenda.
+     * @param popped Number of edges popped from the agenda and added to the chart.
+     */
+    default void agendaCompleted(int pushed, int popped){
+    }
+
+    /**
+     * Called when the parser finishes parsing the given sentence.
+     * @param sentence Sentence parsed.
+     * @param parseCount Number of parse trees found.
+     * @param nanoseconds Wall time of parsing in nanoseconds.
+     */
+    default void parseCompleted(Sentence sentence, int parseCount, long nanoseconds){
+    }
+}
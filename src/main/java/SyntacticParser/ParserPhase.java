@@ -0,0 +1,7 @@
+package SyntacticParser;
+
+public enum ParserPhase {
+    LEXICAL,
+    CHART,
+    TREE_CONSTRUCTION
+}
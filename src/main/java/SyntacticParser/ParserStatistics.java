@@ -0,0 +1,238 @@
+package SyntacticParser;
+
+import Corpus.Sentence;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParserStatistics implements ParserListener {
+
+    private final AtomicLong sentenceCount = new AtomicLong();
+    private final AtomicLong parseCount = new AtomicLong();
+    private final AtomicLong predictorCalls = new AtomicLong();
+    private final AtomicLong scannerCalls = new AtomicLong();
+    private final AtomicLong completerCalls = new AtomicLong();
+    private final AtomicLong chartEntryCount = new AtomicLong();
+    private final AtomicLong cellCount = new AtomicLong();
+    private final AtomicLong cellEntryCount = new AtomicLong();
+    private final AtomicLong ruleLookups = new AtomicLong();
+    private final AtomicLong prunedCellCount = new AtomicLong();
+    private final AtomicLong keptCount = new AtomicLong();
+    private final AtomicLong prunedCount = new AtomicLong();
+    private final AtomicLong pushedCount = new AtomicLong();
+    private final AtomicLong poppedCount = new AtomicLong();
+    private final AtomicLong parseTime = new AtomicLong();
+    private final AtomicLongArray phaseTimes = new AtomicLongArray(ParserPhase.values().length);
+
+    public void phaseCompleted(ParserPhase phase, long nanoseconds){
+        phaseTimes.addAndGet(phase.ordinal(), nanoseconds);
+    }
+
+    public void columnCompleted(int column, int entryCount, int predictorCalls, int scannerCalls, int completerCalls, int ruleLookups, long nanoseconds){
+        chartEntryCount.addAndGet(entryCount);
+        this.predictorCalls.addAndGet(predictorCalls);
+        this.scannerCalls.addAndGet(scannerCalls);
+        this.completerCalls.addAndGet(completerCalls);
+        this.ruleLookups.addAndGet(ruleLookups);
+    }
+
+    public void cellCompleted(int i, int j, int size, int ruleLookups){
+        cellCount.incrementAndGet();
+        cellEntryCount.addAndGet(size);
+        this.ruleLookups.addAndGet(ruleLookups);
+    }
+
+    public void cellPruned(int i, int j, int kept, int pruned){
+        prunedCellCount.incrementAndGet();
+        keptCount.addAndGet(kept);
+        prunedCount.addAndGet(pruned);
+    }
+
+    public void agendaCompleted(int pushed, int popped){
+        pushedCount.addAndGet(pushed);
+        poppedCount.addAndGet(popped);
+    }
+
+    public void parseCompleted(Sentence sentence, int parseCount, long nanoseconds){
+        sentenceCount.incrementAndGet();
+        this.parseCount.addAndGet(parseCount);
+        parseTime.addAndGet(nanoseconds);
+    }
+
+    /**
+     * Accessor for the number of parsed sentences.
+     * @return Number of sentences parsed so far.
+     */
+    public long getSentenceCount(){
+        return sentenceCount.get();
+    }
+
+    /**
+     * Accessor for the number of parse trees.
+     * @return Number of parse trees found so far.
+     */
+    public long getParseCount(){
+        return parseCount.get();
+    }
+
+    /**
+     * Accessor for the number of predictor calls of the Earley parsers.
+     * @return Number of predictor calls.
+     */
+    public long getPredictorCalls(){
+        return predictorCalls.get();
+    }
+
+    /**
+     * Accessor for the number of scanner calls of the Earley parsers.
+     * @return Number of scanner calls.
+     */
+    public long getScannerCalls(){
+        return scannerCalls.get();
+    }
+
+    /**
+     * Accessor for the number of completer calls of the Earley parsers.
+     * @return Number of completer calls.
+     */
+    public long getCompleterCalls(){
+        return completerCalls.get();
+    }
+
+    /**
+     * Accessor for the number of chart entries of the Earley parsers.
+     * @return Number of chart entries in all columns.
+     */
+    public long getChartEntryCount(){
+        return chartEntryCount.get();
+    }
+
+    /**
+     * Accessor for the number of filled cells of the CYK parsers.
+     * @return Number of filled cells.
+     */
+    public long getCellCount(){
+        return cellCount.get();
+    }
+
+    /**
+     * Accessor for the total size of the filled cells of the CYK parsers.
+     * @return Number of partial parses or non-terminals in all filled cells.
+     */
+    public long getCellEntryCount(){
+        return cellEntryCount.get();
+    }
+
+    /**
+     * Accessor for the number of lookups in the grammar index.
+     * @return Number of rule lookups.
+     */
+    public long getRuleLookups(){
+        return ruleLookups.get();
+    }
+
+    /**
+     * Accessor for the number of cells pruned by the CYK parsers with beam pruning.
+     * @return Number of pruned cells.
+     */
+    public long getPrunedCellCount(){
+        return prunedCellCount.get();
+    }
+
+    /**
+     * Accessor for the number of partial parses kept in the pruned cells.
+     * @return Number of kept partial parses.
+     */
+    public long getKeptCount(){
+        return keptCount.get();
+    }
+
+    /**
+     * Accessor for the number of partial parses removed from the pruned cells.
+     * @return Number of pruned partial parses.
+     */
+    public long getPrunedCount(){
+        return prunedCount.get();
+    }
+
+    /**
+     * Returns the ratio of the removed partial parses to all partial parses constructed in the pruned cells.
+     * @return Pruned ratio, 0 if no partial parse is constructed.
+     */
+    public double getPrunedRatio(){
+        long kept = keptCount.get(), pruned = prunedCount.get();
+        if (kept + pruned == 0){
+            return 0.0;
+        }
+        return pruned / (kept + pruned + 0.0);
+    }
+
+    /**
+     * Accessor for the number of edges pushed to the agenda of the best first parsers.
+     * @return Number of pushed edges.
+     */
+    public long getPushedCount(){
+        return pushedCount.get();
+    }
+
+    /**
+     * Accessor for the number of edges popped from the agenda of the best first parsers.
+     * @return Number of popped edges.
+     */
+    public long getPoppedCount(){
+        return poppedCount.get();
+    }
+
+    /**
+     * Returns the total wall time of the given phase.
+     * @param phase Phase of parsing.
+     * @return Wall time of the phase in nanoseconds.
+     */
+    public long getPhaseTime(ParserPhase phase){
+        return phaseTimes.get(phase.ordinal());
+    }
+
+    /**
+     * Accessor for the total wall time of parsing.
+     * @return Wall time of parsing in nanoseconds.
+     */
+    public long getParseTime(){
+        return parseTime.get();
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void reset(){
+        sentenceCount.set(0);
+        parseCount.set(0);
+        predictorCalls.set(0);
+        scannerCalls.set(0);
+        completerCalls.set(0);
+        chartEntryCount.set(0);
+        cellCount.set(0);
+        cellEntryCount.set(0);
+        ruleLookups.set(0);
+        prunedCellCount.set(0);
+        keptCount.set(0);
+        prunedCount.set(0);
+        pushedCount.set(0);
+        poppedCount.set(0);
+        parseTime.set(0);
+        for (int i = 0; i < phaseTimes.length(); i++){
+            phaseTimes.set(i, 0);
+        }
+    }
+
+    public String toString(){
+        StringBuilder result = new StringBuilder("sentences: " + sentenceCount.get() + " parses: " + parseCount.get() +
+                " predictor: " + predictorCalls.get() + " scanner: " + scannerCalls.get() + " completer: " + completerCalls.get() +
+                " chart entries: " + chartEntryCount.get() + " cells: " + cellCount.get() + " cell entries: " + cellEntryCount.get() +
+                " rule lookups: " + ruleLookups.get() + " pruned cells: " + prunedCellCount.get() + " kept: " + keptCount.get() +
+                " pruned: " + prunedCount.get() + " pushed: " + pushedCount.get() + " popped: " + poppedCount.get() + " time: " + parseTime.get() / 1000000 + "ms");
+        for (ParserPhase phase : ParserPhase.values()){
+            result.append(" ").append(phase).append(": ").append(phaseTimes.get(phase.ordinal()) / 1000000).append("ms");
+        }
+        return result.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package SyntacticParser;
 
+import ContextFreeGrammar.CompiledGrammar;
 import ParseTree.ParseNode;
 import ProbabilisticContextFreeGrammar.ProbabilisticParseNode;
 
@@ -53,6 +54,20 @@ public class PartialParseList {
         return partialParses.get(index);
     }
 
+    /**
+     * Returns the ids of the root symbols of the partial parses in the given compiled grammar. The CYK parsers call
+     * this once for a completed cell, so that their inner loops work on symbol ids instead of symbol names.
+     * @param grammar Compiled grammar containing the symbol ids.
+     * @return Array of symbol ids, the i'th id is the id of the root symbol of the i'th partial parse.
+     */
+    public int[] getSymbolIds(CompiledGrammar grammar){
+        int[] symbolIds = new int[partialParses.size()];
+        for (int i = 0; i < partialParses.size(); i++){
+            symbolIds[i] = grammar.getSymbolId(partialParses.get(i).getData());
+        }
+        return symbolIds;
+    }
+
     /**
      * Returns size of the partial parse.
      * @return Size of the partial parse.
@@ -1,6 +1,10 @@
 package SyntacticParser;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
 import ContextFreeGrammar.*;
 import Corpus.Sentence;
 import ParseTree.ParseTree;
@@ -9,4 +13,23 @@ public interface SyntacticParser {
 
     ArrayList<ParseTree> parse(ContextFreeGrammar cfg, Sentence sentence);
 
+    /**
+     * Parses the given sentences concurrently with the given executor. Each sentence is parsed by a single task, the
+     * grammar is only read by the tasks, and the parsers keep their state in local variables, therefore a single
+     * parser and a single grammar can be shared by all tasks. The grammar can be frozen with
+     * {@link ContextFreeGrammar#freeze()} to guarantee that its rules are not changed during parsing.
+     * @param cfg Context free grammar used in parsing.
+     * @param sentences Sentences to be parsed.
+     * @param executor Executor service running the parse tasks.
+     * @return Parse trees of each sentence, in the order of the given sentences.
+     */
+    default ArrayList<ArrayList<ParseTree>> parseAll(ContextFreeGrammar cfg, List<Sentence> sentences, ExecutorService executor){
+        ArrayList<Callable<ArrayList<ParseTree>>> tasks = new ArrayList<>();
+        cfg.compile();
+        for (Sentence sentence : sentences){
+            tasks.add(() -> parse(cfg, sentence));
+        }
+        return TaskRunner.runAll(tasks, executor);
+    }
+
 }
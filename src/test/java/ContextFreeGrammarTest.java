@@ -1,9 +1,30 @@
 import AnnotatedTree.TreeBankDrawable;
 import ContextFreeGrammar.ContextFreeGrammar;
+import ContextFreeGrammar.Rule;
+import ContextFreeGrammar.TaskRunner;
+import Corpus.Sentence;
+import ParseTree.ParseTree;
 import ParseTree.TreeBank;
+import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
+import ProbabilisticParser.ProbabilisticEarleyParser;
+import SyntacticParser.CYKParser;
+import SyntacticParser.EarleyParser;
+import SyntacticParser.ParseForest;
+import SyntacticParser.ParserPhase;
+import SyntacticParser.ParserStatistics;
 import org.junit.Test;
 
 import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -20,4 +41,135 @@ public class ContextFreeGrammarTest {
         TreeBankDrawable treeBank3 = new TreeBankDrawable(new File("trees3"));
         ContextFreeGrammar cfg4 = new ContextFreeGrammar(treeBank3, 1);
     }
+
+    @Test
+    public void testPackedCYKParser() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ContextFreeGrammar cfg = new ContextFreeGrammar(treeBank, 1);
+        cfg.convertToChomskyNormalForm();
+        CYKParser cykParser = new CYKParser();
+        CYKParser packedParser = new CYKParser(true);
+        ArrayList<ParseTree> parses1 = cykParser.parse(cfg, new Sentence("Bu kez , onlar daha da hızlı hareket ediyor ."));
+        ArrayList<ParseTree> parses2 = packedParser.parse(cfg, new Sentence("Bu kez , onlar daha da hızlı hareket ediyor ."));
+        assertEquals(24, parses1.size());
+        assertEquals(parses1.size(), parses2.size());
+        assertTrue(packedParser.recognize(cfg, new Sentence("Bu kez firmalar hazırdı .")));
+        assertFalse(packedParser.recognize(cfg, new Sentence("kez Bu .")));
+    }
+
+    @Test
+    public void testFreeze() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ContextFreeGrammar cfg = new ContextFreeGrammar(treeBank, 1);
+        cfg.convertToChomskyNormalForm();
+        cfg.freeze();
+        assertTrue(cfg.isFrozen());
+        try {
+            cfg.addRule(new Rule("S -> NP VP"));
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        Sentence sentence = new Sentence("Bu kez 12 firmalar hazırdı .");
+        assertEquals("_num_", cfg.normalizeSentence(sentence).getWord(2).getName());
+        new CYKParser().parse(cfg, sentence);
+        assertEquals("12", sentence.getWord(2).getName());
+    }
+
+    @Test
+    public void testParserStatistics() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ContextFreeGrammar cfg = new ContextFreeGrammar(treeBank, 1);
+        cfg.convertToChomskyNormalForm();
+        ParserStatistics statistics = new ParserStatistics();
+        CYKParser cykParser = new CYKParser();
+        cykParser.setListener(statistics);
+        ArrayList<ParseTree> parses = cykParser.parse(cfg, new Sentence("Bu kez , onlar daha da hızlı hareket ediyor ."));
+        assertEquals(1, statistics.getSentenceCount());
+        assertEquals(parses.size(), statistics.getParseCount());
+        assertEquals(10 * 11 / 2, statistics.getCellCount());
+        assertTrue(statistics.getRuleLookups() > 0);
+        assertTrue(statistics.getPhaseTime(ParserPhase.CHART) > 0);
+        ContextFreeGrammar cfg2 = new ContextFreeGrammar("rule1.txt", "dictionary1.txt", 1);
+        EarleyParser earleyParser = new EarleyParser();
+        earleyParser.setListener(statistics);
+        earleyParser.parse(cfg2, new Sentence("Bu kez firmalar hazırdı ."));
+        assertEquals(2, statistics.getSentenceCount());
+        assertTrue(statistics.getPredictorCalls() > 0);
+        assertTrue(statistics.getScannerCalls() > 0);
+        assertTrue(statistics.getCompleterCalls() > 0);
+        assertTrue(statistics.getChartEntryCount() > 0);
+        statistics.reset();
+        assertEquals(0, statistics.getSentenceCount());
+    }
+
+    @Test
+    public void testParseForest() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ContextFreeGrammar cfg = new ContextFreeGrammar(treeBank, 1);
+        cfg.convertToChomskyNormalForm();
+        Sentence sentence = new Sentence("Bu kez , onlar daha da hızlı hareket ediyor .");
+        ArrayList<ParseTree> parses = new CYKParser(true).parse(cfg, sentence);
+        ParseForest forest = new CYKParser().parseForest(cfg, sentence);
+        assertEquals(BigInteger.valueOf(parses.size()), forest.countDerivations());
+        int i = 0;
+        for (ParseTree parseTree : forest){
+            assertEquals(parses.get(i).toString(), parseTree.toString());
+            i++;
+        }
+        assertEquals(parses.size(), i);
+        ContextFreeGrammar cfg2 = new ContextFreeGrammar("rule1.txt", "dictionary1.txt", 1);
+        ParseForest forest2 = new EarleyParser().parseForest(cfg2, new Sentence("Bu kez firmalar hazırdı ."));
+        ArrayList<String> earleyTrees = new ArrayList<>(), forestTrees = new ArrayList<>();
+        for (ParseTree parseTree : new EarleyParser().parse(cfg2, new Sentence("Bu kez firmalar hazırdı ."))){
+            earleyTrees.add(parseTree.toString());
+        }
+        for (ParseTree parseTree : forest2){
+            forestTrees.add(parseTree.toString());
+        }
+        Collections.sort(earleyTrees);
+        Collections.sort(forestTrees);
+        assertEquals(BigInteger.valueOf(earleyTrees.size()), forest2.countDerivations());
+        assertEquals(earleyTrees, forestTrees);
+        assertFalse(new EarleyParser().parseForest(cfg2, new Sentence("hazırdı kez")).iterator().hasNext());
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar("rule-unary-cycle.txt", "dictionary-unary-cycle.txt", 1);
+        Sentence sentence3 = new Sentence("ev");
+        ParseForest forest3 = new ParseForest(new ProbabilisticEarleyParser().constructChart(pcfg, sentence3), pcfg.compile(), sentence3);
+        HashSet<String> cycleTrees = new HashSet<>();
+        for (ParseTree parseTree : forest3){
+            cycleTrees.add(parseTree.toString());
+        }
+        assertEquals(4, cycleTrees.size());
+        assertEquals(BigInteger.valueOf(4), forest3.countDerivations());
+    }
+
+    @Test
+    public void testTaskRunner() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ArrayList<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++){
+            int value = i;
+            tasks.add(() -> value * value);
+        }
+        assertEquals(Arrays.asList(0, 1, 4, 9, 16), TaskRunner.runAll(tasks, executor));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        tasks.clear();
+        tasks.add(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0;
+        });
+        tasks.add(() -> {
+            started.await();
+            throw new IllegalArgumentException();
+        });
+        assertThrows(IllegalArgumentException.class, () -> TaskRunner.runAll(tasks, executor));
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
 }
@@ -1,14 +1,31 @@
 import AnnotatedTree.TreeBankDrawable;
+import ContextFreeGrammar.CompiledGrammar;
 import ContextFreeGrammar.ContextFreeGrammar;
+import ContextFreeGrammar.Rule;
 import Corpus.Sentence;
 import ParseTree.ParseTree;
 import ParseTree.TreeBank;
 import ProbabilisticContextFreeGrammar.ProbabilisticContextFreeGrammar;
+import ProbabilisticContextFreeGrammar.ProbabilisticParseNode;
+import ProbabilisticContextFreeGrammar.ProbabilisticRule;
+import ProbabilisticParser.Derivation;
+import ProbabilisticParser.EarleyKBestExtractor;
+import ProbabilisticParser.OutsideEstimate;
+import ProbabilisticParser.ProbabilisticBestFirstParser;
 import ProbabilisticParser.ProbabilisticCYKParser;
+import ProbabilisticParser.ProbabilisticEarleyParser;
+import SyntacticParser.ParserStatistics;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -26,6 +43,38 @@ public class ProbabilisticContextFreeGrammarTest {
         ProbabilisticContextFreeGrammar cfg4 = new ProbabilisticContextFreeGrammar(treeBank3, 1);
     }
 
+    @Test
+    public void testRuleEquality() {
+        ProbabilisticRule rule1 = new ProbabilisticRule("S -> NP VP [0.5]");
+        ProbabilisticRule rule2 = new ProbabilisticRule("S -> NP VP [0.25]");
+        assertEquals(rule1, rule2);
+        assertEquals(rule1.hashCode(), rule2.hashCode());
+        assertEquals(rule1, new Rule("S -> NP VP"));
+        assertFalse(rule1.equals(new ProbabilisticRule("S -> NP VP . [0.5]")));
+        assertFalse(rule1.equals(new ProbabilisticRule("S -> VP NP [0.5]")));
+    }
+
+    @Test
+    public void testPCFGFromFolder() {
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(new TreeBank(new File("trees")), 1);
+        ProbabilisticContextFreeGrammar pcfg2 = new ProbabilisticContextFreeGrammar(new File("trees"), 1);
+        assertEquals(pcfg.size(), pcfg2.size());
+        pcfg.convertToChomskyNormalForm();
+        pcfg2.convertToChomskyNormalForm();
+        Sentence sentence = new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır .");
+        assertEquals(new ProbabilisticCYKParser().parse(pcfg, sentence).toString(), new ProbabilisticCYKParser().parse(pcfg2, sentence).toString());
+        ContextFreeGrammar cfg = new ContextFreeGrammar(new File("trees2"), 1);
+        assertEquals(new ContextFreeGrammar(new TreeBank(new File("trees2")), 1).size(), cfg.size());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ProbabilisticContextFreeGrammar pcfg3 = new ProbabilisticContextFreeGrammar(new TreeBank(new File("trees")), 1, executor);
+        ProbabilisticContextFreeGrammar pcfg4 = new ProbabilisticContextFreeGrammar(new File("trees"), 1, executor);
+        executor.shutdown();
+        pcfg3.convertToChomskyNormalForm();
+        pcfg4.convertToChomskyNormalForm();
+        assertEquals(new ProbabilisticCYKParser().parse(pcfg, sentence).toString(), new ProbabilisticCYKParser().parse(pcfg3, sentence).toString());
+        assertEquals(new ProbabilisticCYKParser().parse(pcfg, sentence).toString(), new ProbabilisticCYKParser().parse(pcfg4, sentence).toString());
+    }
+
     @Test
     public void testPCFGParser() {
         ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
@@ -58,4 +107,174 @@ public class ProbabilisticContextFreeGrammarTest {
         assertEquals(parses2.size(), 1);
     }
 
+    @Test
+    public void testParallelPCFGParser() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        ArrayList<ParseTree> parses1 = new ProbabilisticCYKParser().parse(pcfg, new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır ."));
+        ArrayList<ParseTree> parses2 = new ProbabilisticCYKParser(pool).parse(pcfg, new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır ."));
+        assertEquals(parses1.size(), parses2.size());
+        assertEquals(parses1.get(0).toString(), parses2.get(0).toString());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParseAll() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        ArrayList<Sentence> sentences = new ArrayList<>();
+        for (int i = 0; i < 8; i++){
+            sentences.add(new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır ."));
+            sentences.add(new Sentence("yeni yasada ."));
+        }
+        ArrayList<ArrayList<ParseTree>> parses = probabilisticCYKParser.parseAll(pcfg, sentences, executor);
+        assertEquals(sentences.size(), parses.size());
+        for (int i = 0; i < parses.size(); i++){
+            assertEquals(probabilisticCYKParser.parse(pcfg, new Sentence(i % 2 == 0 ? "yeni Büyük yasada karmaşık dil savaşı bulandırmıştır ." : "yeni yasada .")).toString(), parses.get(i).toString());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testBeamPCFGParser() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+        ProbabilisticCYKParser beamParser = new ProbabilisticCYKParser(null, 3, 5.0);
+        ParserStatistics statistics = new ParserStatistics();
+        probabilisticCYKParser.setListener(statistics);
+        ArrayList<ParseTree> parses1 = probabilisticCYKParser.parse(pcfg, new Sentence("Bu kez , onlar daha da hızlı hareket ediyor ."));
+        assertEquals(0, statistics.getPrunedCellCount());
+        long unprunedCellEntryCount = statistics.getCellEntryCount();
+        statistics = new ParserStatistics();
+        beamParser.setListener(statistics);
+        ArrayList<ParseTree> parses2 = beamParser.parse(pcfg, new Sentence("Bu kez , onlar daha da hızlı hareket ediyor ."));
+        assertEquals(parses1.toString(), parses2.toString());
+        assertEquals(10 * 11 / 2 - 1, statistics.getPrunedCellCount());
+        assertTrue(statistics.getPrunedCount() > 0);
+        assertTrue(statistics.getKeptCount() <= 3 * statistics.getPrunedCellCount());
+        assertTrue(statistics.getCellEntryCount() < unprunedCellEntryCount);
+        statistics = new ParserStatistics();
+        beamParser.setListener(statistics);
+        beamParser.parse(pcfg, new Sentence("yeni yasada ."));
+        assertEquals(1, statistics.getSentenceCount());
+        assertEquals(3 * 4 / 2 - 1, statistics.getPrunedCellCount());
+        assertTrue(statistics.getKeptCount() <= 3 * statistics.getPrunedCellCount());
+    }
+
+    @Test
+    public void testKBestPCFGParser() {
+        ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        Sentence sentence = new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır .");
+        ArrayList<ParseTree> parses1 = probabilisticCYKParser.parse(pcfg, sentence);
+        ArrayList<ParseTree> parses2 = probabilisticCYKParser.parseKBest(pcfg, sentence, 10);
+        assertEquals(10, parses2.size());
+        assertEquals(parses1.get(0).toString(), parses2.get(0).toString());
+        for (int i = 1; i < parses2.size(); i++){
+            assertTrue(((ProbabilisticParseNode) parses2.get(i - 1).getRoot()).getLogProbability() >= ((ProbabilisticParseNode) parses2.get(i).getRoot()).getLogProbability());
+            assertFalse(parses2.get(i - 1).toString().equals(parses2.get(i).toString()));
+        }
+    }
+
+    @Test
+    public void testBestFirstPCFGParser() {
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+        ParserStatistics statistics = new ParserStatistics();
+        probabilisticCYKParser.setListener(statistics);
+        ProbabilisticBestFirstParser uniformCostParser = new ProbabilisticBestFirstParser();
+        ParserStatistics uniformCostStatistics = new ParserStatistics();
+        uniformCostParser.setListener(uniformCostStatistics);
+        ProbabilisticBestFirstParser aStarParser = new ProbabilisticBestFirstParser(new OutsideEstimate(pcfg, 20));
+        ParserStatistics aStarStatistics = new ParserStatistics();
+        aStarParser.setListener(aStarStatistics);
+        Sentence sentence = new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır .");
+        ArrayList<ParseTree> parses1 = probabilisticCYKParser.parse(pcfg, sentence);
+        assertEquals(parses1.toString(), uniformCostParser.parse(pcfg, sentence).toString());
+        assertEquals(parses1.toString(), aStarParser.parse(pcfg, sentence).toString());
+        assertEquals(1, aStarStatistics.getSentenceCount());
+        assertTrue(aStarStatistics.getPoppedCount() > 0);
+        assertTrue(aStarStatistics.getPoppedCount() <= aStarStatistics.getPushedCount());
+        assertTrue(aStarStatistics.getPoppedCount() < uniformCostStatistics.getPoppedCount());
+        assertTrue(aStarStatistics.getPoppedCount() < statistics.getCellEntryCount());
+        assertEquals(0, aStarParser.parse(pcfg, new Sentence(". yeni")).size());
+    }
+
+    @Test
+    public void testLongSentenceLogProbability() {
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar("rule-right-branching.txt", "dictionary-right-branching.txt", 1);
+        StringBuilder words = new StringBuilder("ev");
+        for (int i = 1; i < 200; i++){
+            words.append(" ev");
+        }
+        Sentence sentence = new Sentence(words.toString());
+        double expected = Math.log(0.5) + 199 * Math.log(0.01) + Math.log(0.99);
+        assertEquals(0.0, Math.exp(expected), 0.0);
+        ArrayList<ParseTree> parses = new ProbabilisticEarleyParser().parse(pcfg, sentence);
+        assertEquals(1, parses.size());
+        assertEquals(expected, pcfg.probability(parses.get(0)), 1e-9);
+    }
+
+    @Test
+    public void testKBestUnaryCycle() {
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar("rule-unary-cycle.txt", "dictionary-unary-cycle.txt", 1);
+        ProbabilisticEarleyParser probabilisticEarleyParser = new ProbabilisticEarleyParser();
+        Sentence sentence = new Sentence("ev");
+        ArrayList<ParseTree> parses = probabilisticEarleyParser.parseKBest(pcfg, sentence, 10);
+        assertEquals(4, parses.size());
+        double[] probabilities = {0.3, 0.2, 0.15, 0.1};
+        for (int i = 0; i < parses.size(); i++){
+            assertEquals(probabilities[i], Math.exp(pcfg.probability(parses.get(i))), 1e-12);
+        }
+        CompiledGrammar grammar = pcfg.compile();
+        EarleyKBestExtractor extractor = new EarleyKBestExtractor(grammar, probabilisticEarleyParser.constructChart(pcfg, sentence), sentence);
+        assertEquals(2, extractor.getKBest(new EarleyKBestExtractor.Item(grammar.getSymbolId("VP"), 0, 1, -1), 10).size());
+        ArrayList<Derivation<EarleyKBestExtractor.Item>> derivations = extractor.getKBest(new EarleyKBestExtractor.Item(grammar.getSymbolId("S"), 0, 1, -1), 10);
+        assertEquals(4, derivations.size());
+        for (int i = 0; i < derivations.size(); i++){
+            assertEquals(pcfg.probability(parses.get(i)), derivations.get(i).getLogProbability(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        ProbabilisticCYKParser probabilisticCYKParser = new ProbabilisticCYKParser();
+        TreeBank treeBank = new TreeBank(new File("trees"));
+        ProbabilisticContextFreeGrammar pcfg = new ProbabilisticContextFreeGrammar(treeBank, 1);
+        pcfg.convertToChomskyNormalForm();
+        File snapshot = File.createTempFile("pcfg", ".bin");
+        snapshot.deleteOnExit();
+        pcfg.writeSnapshot(snapshot.getPath());
+        ProbabilisticContextFreeGrammar pcfg2 = ProbabilisticContextFreeGrammar.readSnapshot(snapshot.toPath());
+        assertEquals(pcfg.size(), pcfg2.size());
+        assertEquals(pcfg.compile().getSymbolCount(), pcfg2.compile().getSymbolCount());
+        Sentence sentence = new Sentence("yeni Büyük yasada karmaşık dil savaşı bulandırmıştır .");
+        assertEquals(probabilisticCYKParser.parse(pcfg, sentence).toString(), probabilisticCYKParser.parse(pcfg2, sentence).toString());
+        ContextFreeGrammar cfg = ContextFreeGrammar.readSnapshot(snapshot.toPath());
+        assertEquals(pcfg.size(), cfg.size());
+        assertThrows(IOException.class, () -> ProbabilisticContextFreeGrammar.readSnapshot(Paths.get("rule-pcfg.txt")));
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        File truncated = File.createTempFile("pcfg", ".bin");
+        truncated.deleteOnExit();
+        Files.write(truncated.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ProbabilisticContextFreeGrammar.readSnapshot(truncated.toPath()));
+        bytes[7]++;
+        Files.write(truncated.toPath(), bytes);
+        assertThrows(IOException.class, () -> ProbabilisticContextFreeGrammar.readSnapshot(truncated.toPath()));
+        File missingFolder = new File(snapshot.getParentFile(), snapshot.getName() + ".missing");
+        assertThrows(IOException.class, () -> pcfg.writeSnapshot(new File(missingFolder, "pcfg.bin").getPath()));
+        assertFalse(missingFolder.exists());
+    }
+
 }